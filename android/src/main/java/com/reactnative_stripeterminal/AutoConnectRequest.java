@@ -0,0 +1,44 @@
+package com.reactnative_stripeterminal;
+
+import com.stripe.stripeterminal.external.callable.Cancelable;
+import com.stripe.stripeterminal.external.models.Reader;
+
+import java.util.List;
+
+/**
+ * Target for discoverAndConnect: either a serial number or, when none is given, the first
+ * reader in a discovery update.
+ */
+public class AutoConnectRequest {
+    static final String POLICY_FIRST = "first";
+
+    final String serialNumber;
+    final String policy;
+    final String locationId;
+    //The discovery started for this request, guarded by the module's discoveryLock
+    Cancelable discovery = null;
+
+    AutoConnectRequest(String serialNumber, String policy, String locationId){
+        this.serialNumber = serialNumber;
+        this.policy = policy;
+        this.locationId = locationId;
+    }
+
+    /**
+     * Returns the reader to connect to from this update, or null to keep discovering.
+     */
+    Reader select(List<? extends Reader> readers){
+        for(Reader reader:readers){
+            if(reader==null)
+                continue;
+
+            if(serialNumber!=null && !serialNumber.isEmpty()){
+                if(serialNumber.equals(reader.getSerialNumber()))
+                    return reader;
+            }else{
+                return reader;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,85 @@
+package com.reactnative_stripeterminal;
+
+import android.util.Log;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs Stripe SDK callback handling (state updates, serialization and event emission) on one
+ * background thread instead of whichever thread the SDK delivered on, often the main looper.
+ * A single FIFO worker keeps every event kind in delivery order.
+ *
+ * Only work that ends in a JS event belongs here: shutdown() discards queued tasks, which is
+ * safe once the React instance is gone. Callbacks the SDK waits on (connection tokens) must
+ * not be dispatched.
+ */
+public class CallbackDispatcher {
+    static final String TAG = CallbackDispatcher.class.getSimpleName();
+    static final String THREAD_NAME = "RNStripeTerminalCallbacks";
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            return new Thread(runnable, THREAD_NAME);
+        }
+    });
+    private final AtomicInteger queueDepth = new AtomicInteger(0);
+    private final AtomicInteger maxQueueDepth = new AtomicInteger(0);
+    private final AtomicLong dispatchedCount = new AtomicLong(0);
+
+    public void execute(final String name, final Runnable runnable){
+        int depth = queueDepth.incrementAndGet();
+        int max = maxQueueDepth.get();
+        while(depth>max && !maxQueueDepth.compareAndSet(max, depth)){
+            max = maxQueueDepth.get();
+        }
+
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    queueDepth.decrementAndGet();
+                    boolean traced = TerminalTrace.begin(name);
+                    try {
+                        runnable.run();
+                    } catch (RuntimeException e){
+                        //Rethrown so a broken handler fails loudly instead of leaving a JS promise unsettled
+                        Log.e(TAG, "Callback "+name+" failed", e);
+                        throw e;
+                    } finally {
+                        TerminalTrace.end(traced);
+                        dispatchedCount.incrementAndGet();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e){
+            //Module was torn down, nothing left to deliver to
+            queueDepth.decrementAndGet();
+        }
+    }
+
+    public int getQueueDepth(){
+        return queueDepth.get();
+    }
+
+    public int getMaxQueueDepth(){
+        return maxQueueDepth.get();
+    }
+
+    public long getDispatchedCount(){
+        return dispatchedCount.get();
+    }
+
+    /**
+     * Drops queued events; their JS listeners are being torn down with the module.
+     */
+    public void shutdown(){
+        executor.shutdownNow();
+        queueDepth.set(0);
+    }
+}
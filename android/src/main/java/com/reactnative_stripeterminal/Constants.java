@@ -16,6 +16,7 @@ public class Constants {
     //Plugin Events
     public static final String EVENT_READER_DISCOVERY_COMPLETION = "readerDiscoveryCompletion";
     public static final String EVENT_READERS_DISCOVERED = "readersDiscovered";
+    public static final String EVENT_READER_DISCOVERED = "readerDiscovered";
     public static final String EVENT_LAST_READER_EVENT = "lastReaderEvent";
     public static final String EVENT_REQUEST_CONNECTION_TOKEN = "requestConnectionToken";
     public static final String EVENT_DID_REPORT_LOW_BATTERY_WARNING = "didReportLowBatteryWarning";
@@ -46,6 +47,10 @@ public class Constants {
     public static final String EVENT_DID_FINISH_INSTALLING_UPDATE = "didFinishInstallingUpdate";
     public static final String EVENT_ABORT_INSTALL_COMPLETION = "abortInstallUpdateCompletion";
     public static final String EVENT_ABORT_CREATE_PAYMENT_COMPLETION = "abortCreatePaymentCompletion";
+    public static final String EVENT_LISTENER_COUNTS = "listenerCounts";
+    public static final String EVENT_CONNECTION_TOKEN_ENDPOINT = "connectionTokenEndpoint";
+    public static final String EVENT_CART_UPDATE = "cartUpdate";
+    public static final String EVENT_DISPATCH_QUEUE_STATS = "dispatchQueueStats";
 
     //JSON keys
     public static final String ERROR ="error";
@@ -76,6 +81,12 @@ public class Constants {
     public static final String STATEMENT_DESCRIPTOR = "statementDescriptor";
     public static final String RECEIPT_EMAIL = "receiptEmail";
     public static final String UPDATE ="update";
+    public static final String COUNTS = "counts";
+    public static final String UNNAMED_REMOVALS = "unnamedRemovals";
+    public static final String LINE_COUNT = "lineCount";
+    public static final String QUEUE_DEPTH = "queueDepth";
+    public static final String MAX_QUEUE_DEPTH = "maxQueueDepth";
+    public static final String DISPATCHED_COUNT = "dispatchedCount";
 
     //Plugin Constants
     static{
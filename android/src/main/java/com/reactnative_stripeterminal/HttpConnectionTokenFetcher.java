@@ -0,0 +1,121 @@
+package com.reactnative_stripeterminal;
+
+import com.stripe.stripeterminal.external.callable.ConnectionTokenCallback;
+import com.stripe.stripeterminal.external.models.ConnectionTokenException;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Fetches connection tokens straight from the backend so the SDK does not wait on the JS thread.
+ * Expects a JSON response containing the token under SECRET ("secret"), the same shape the
+ * README's JS fetchConnectionToken example reads.
+ *
+ * Bodies are always read to the end and closed (never disconnect()) so HttpURLConnection can
+ * return the socket to its keep-alive pool for the next token request.
+ */
+public class HttpConnectionTokenFetcher {
+    static final String SECRET = "secret";
+    static final int TIMEOUT_MS = 15000;
+
+    private final URL endpoint;
+    private final Map<String,String> headers;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    public HttpConnectionTokenFetcher(String endpoint, Map<String,String> headers) throws IOException {
+        this.endpoint = new URL(endpoint);
+        this.headers = headers!=null?new HashMap<String,String>(headers):new HashMap<String,String>();
+    }
+
+    public void fetchConnectionToken(final ConnectionTokenCallback connectionTokenCallback){
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    boolean traced = TerminalTrace.begin("fetchConnectionToken.http");
+                    String token;
+                    try {
+                        token = fetchToken();
+                    } catch (Exception e) {
+                        TerminalTrace.end(traced);
+                        connectionTokenCallback.onFailure(new ConnectionTokenException("Failed to fetch connection token: "+e.getMessage()));
+                        return;
+                    }
+                    TerminalTrace.end(traced);
+                    connectionTokenCallback.onSuccess(token);
+                }
+            });
+        } catch (RejectedExecutionException e){
+            //Endpoint was replaced or the module torn down between reading this fetcher and calling it
+            connectionTokenCallback.onFailure(new ConnectionTokenException("Connection token fetcher was shut down"));
+        }
+    }
+
+    /**
+     * Performs the request on the calling thread and returns the token.
+     */
+    public String fetchToken() throws IOException, JSONException {
+        HttpURLConnection connection = (HttpURLConnection) endpoint.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setConnectTimeout(TIMEOUT_MS);
+        connection.setReadTimeout(TIMEOUT_MS);
+        connection.setRequestProperty("Accept", "application/json");
+        for(Map.Entry<String,String> header:headers.entrySet()){
+            connection.setRequestProperty(header.getKey(), header.getValue());
+        }
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(0);
+        OutputStream outputStream = connection.getOutputStream();
+        outputStream.close();
+
+        int status = connection.getResponseCode();
+        boolean isSuccess = status>=200 && status<300;
+        String body = readFully(isSuccess?connection.getInputStream():connection.getErrorStream());
+
+        if(!isSuccess){
+            throw new IOException("HTTP "+status+" from connection token endpoint");
+        }
+
+        String token = new JSONObject(body).optString(SECRET, "");
+        if(token.isEmpty()){
+            throw new IOException("Connection token endpoint returned no "+SECRET);
+        }
+        return token;
+    }
+
+    /**
+     * Stops accepting new requests. Requests already queued still run so the SDK always gets
+     * an answer for every token it asked for.
+     */
+    public void shutdown(){
+        executor.shutdown();
+    }
+
+    static String readFully(InputStream inputStream) throws IOException {
+        if(inputStream==null)
+            return "";
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            byte[] chunk = new byte[1024];
+            int read;
+            while((read = inputStream.read(chunk))!=-1){
+                buffer.write(chunk, 0, read);
+            }
+            return buffer.toString("UTF-8");
+        } finally {
+            inputStream.close();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.reactnative_stripeterminal;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tracks how many JS subscribers exist for each event name so callbacks can
+ * skip building and emitting payloads nobody is listening for.
+ *
+ * RN 0.64 does not forward NativeEventEmitter subscriptions to the native module
+ * on Android, and later versions report removals only as a count, so index.ts
+ * registers both sides itself through addListenerForEvent/removeListenerForEvent.
+ */
+public class ListenerRegistry {
+    private final HashMap<String,Integer> counts = new HashMap<String,Integer>();
+    private int unnamedRemovals = 0;
+
+    public synchronized void add(String eventName){
+        if(eventName==null)
+            return;
+        Integer count = counts.get(eventName);
+        counts.put(eventName, count==null?1:count+1);
+    }
+
+    public synchronized void remove(String eventName){
+        if(eventName==null)
+            return;
+        Integer count = counts.get(eventName);
+        if(count==null || count<=1){
+            counts.remove(eventName);
+        }else{
+            counts.put(eventName, count-1);
+        }
+    }
+
+    public synchronized void removeUnnamed(int count){
+        unnamedRemovals += count;
+    }
+
+    public synchronized boolean hasListeners(String eventName){
+        Integer count = counts.get(eventName);
+        return count!=null && count>0;
+    }
+
+    public synchronized Map<String,Integer> snapshot(){
+        return new HashMap<String,Integer>(counts);
+    }
+
+    public synchronized int getUnnamedRemovals(){
+        return unnamedRemovals;
+    }
+
+    public synchronized void clear(){
+        counts.clear();
+        unnamedRemovals = 0;
+    }
+}
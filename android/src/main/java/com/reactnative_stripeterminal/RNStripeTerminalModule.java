@@ -8,6 +8,7 @@ import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMapKeySetIterator;
+import com.facebook.react.bridge.ReadableType;
 import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
@@ -45,6 +46,7 @@ import java.sql.Wrapper;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Arrays;
@@ -58,18 +60,266 @@ import static com.reactnative_stripeterminal.Constants.*;
 public class RNStripeTerminalModule extends ReactContextBaseJavaModule implements TerminalListener, ConnectionTokenProvider, BluetoothReaderListener,DiscoveryListener {
     final static String TAG = RNStripeTerminalModule.class.getSimpleName();
     final static String moduleName = "RNStripeTerminal";
-    Cancelable pendingDiscoverReaders = null;
-    Cancelable pendingCreatePaymentIntent = null;
-    PaymentIntent lastPaymentIntent = null;
-    ReaderEvent lastReaderEvent=ReaderEvent.CARD_REMOVED;
-    ConnectionTokenCallback pendingConnectionTokenCallback = null;
-    String lastCurrency = null;
-    List<? extends Reader> discoveredReadersList = null;
-    ReaderSoftwareUpdate readerSoftwareUpdate;
-    Cancelable pendingInstallUpdate = null;
+    volatile Cancelable pendingDiscoverReaders = null;
+    volatile Cancelable pendingCreatePaymentIntent = null;
+    volatile PaymentIntent lastPaymentIntent = null;
+    volatile ReaderEvent lastReaderEvent=ReaderEvent.CARD_REMOVED;
+    volatile ConnectionTokenCallback pendingConnectionTokenCallback = null;
+    boolean isReleased = false; //Guarded by this, together with pendingConnectionTokenCallback
+    volatile String lastCurrency = null;
+    volatile List<? extends Reader> discoveredReadersList = null;
+    volatile DiscoveryMethod discoveryMethod = DiscoveryMethod.INTERNET;
+    final HashSet<String> streamedReaderSerials = new HashSet<String>();
+    volatile AutoConnectRequest pendingAutoConnect = null;
+    volatile ReaderSoftwareUpdate readerSoftwareUpdate;
+    volatile Cancelable pendingInstallUpdate = null;
+    final ListenerRegistry listenerRegistry = new ListenerRegistry();
+    final CallbackDispatcher dispatcher = new CallbackDispatcher();
+    volatile HttpConnectionTokenFetcher connectionTokenFetcher = null;
+    final ReaderCart readerCart = new ReaderCart();
+    final Object cartPushLock = new Object();
+    final Object discoveryLock = new Object();
+    boolean cartPushInFlight = false;
+    boolean cartPushPending = false;
+
+    //Shared callback for reader display calls whose result is not reported to JS
+    static final Callback noOpCallback = new Callback() {
+        @Override
+        public void onSuccess() { }
+
+        @Override
+        public void onFailure(@Nonnull TerminalException e) { }
+    };
+
+    //Reused SDK callbacks; they only read module fields so one instance per module is enough
+    final Callback discoverReadersCallback = new Callback() {
+        @Override
+        public void onSuccess() {
+            dispatcher.execute("discoverReadersCallback.onSuccess", new Runnable() {
+                @Override
+                public void run() {
+                    if(!hasListeners(EVENT_READER_DISCOVERY_COMPLETION))
+                        return;
+                    WritableMap readerCompletionResponse = Arguments.createMap();
+                    sendEventWithName(EVENT_READER_DISCOVERY_COMPLETION,readerCompletionResponse);
+                }
+            });
+        }
+
+        @Override
+        public void onFailure(@Nonnull final TerminalException e) {
+            dispatcher.execute("discoverReadersCallback.onFailure", new Runnable() {
+                @Override
+                public void run() {
+                    if(!hasListeners(EVENT_READER_DISCOVERY_COMPLETION))
+                        return;
+                    WritableMap errorMap = Arguments.createMap();
+                    errorMap.putString(ERROR, e.getErrorMessage());
+                    sendEventWithName(EVENT_READER_DISCOVERY_COMPLETION,errorMap);
+                }
+            });
+        }
+    };
+
+    final PaymentIntentCallback retrievePaymentIntentCallback = new PaymentIntentCallback() {
+        @Override
+        public void onSuccess(@Nonnull final PaymentIntent paymentIntent) {
+            dispatcher.execute("retrievePaymentIntentCallback.onSuccess", new Runnable() {
+                @Override
+                public void run() {
+                    lastPaymentIntent  = paymentIntent;
+                    if(!hasListeners(EVENT_PAYMENT_INTENT_RETRIEVAL))
+                        return;
+                    WritableMap paymentRetrieveRespMap = Arguments.createMap();
+                    paymentRetrieveRespMap.putMap(INTENT,serializePaymentIntent(paymentIntent,"")); //No currency for android
+                    sendEventWithName(EVENT_PAYMENT_INTENT_RETRIEVAL, paymentRetrieveRespMap);
+                }
+            });
+        }
+
+        @Override
+        public void onFailure(@Nonnull final TerminalException e) {
+            dispatcher.execute("retrievePaymentIntentCallback.onFailure", new Runnable() {
+                @Override
+                public void run() {
+                    lastPaymentIntent = null;
+                    if(!hasListeners(EVENT_PAYMENT_INTENT_RETRIEVAL))
+                        return;
+                    WritableMap paymentRetrieveRespMap = Arguments.createMap();
+                    paymentRetrieveRespMap.putString(ERROR,e.getErrorMessage());
+                    sendEventWithName(EVENT_PAYMENT_INTENT_RETRIEVAL, paymentRetrieveRespMap);
+                }
+            });
+        }
+    };
+
+    final PaymentIntentCallback cancelPaymentIntentCallback = new PaymentIntentCallback() {
+        @Override
+        public void onSuccess(@Nonnull final PaymentIntent paymentIntent) {
+            dispatcher.execute("cancelPaymentIntentCallback.onSuccess", new Runnable() {
+                @Override
+                public void run() {
+                    if(!hasListeners(EVENT_PAYMENT_INTENT_CANCEL))
+                        return;
+                    WritableMap paymentIntentCancelMap = Arguments.createMap();
+                    paymentIntentCancelMap.putMap(INTENT,serializePaymentIntent(paymentIntent,lastCurrency));
+                    sendEventWithName(EVENT_PAYMENT_INTENT_CANCEL,paymentIntentCancelMap);
+                }
+            });
+        }
+
+        @Override
+        public void onFailure(@Nonnull final TerminalException e) {
+            dispatcher.execute("cancelPaymentIntentCallback.onFailure", new Runnable() {
+                @Override
+                public void run() {
+                    if(!hasListeners(EVENT_PAYMENT_INTENT_CANCEL))
+                        return;
+                    WritableMap errorMap = Arguments.createMap();
+                    errorMap.putString(ERROR,e.getErrorMessage());
+                    errorMap.putInt(CODE,e.getErrorCode().ordinal());
+                    errorMap.putMap(INTENT,serializePaymentIntent(lastPaymentIntent,lastCurrency));
+                    sendEventWithName(EVENT_PAYMENT_INTENT_CANCEL,errorMap);
+                }
+            });
+        }
+    };
+
+    final PaymentIntentCallback processPaymentCallback = new PaymentIntentCallback() {
+        @Override
+        public void onSuccess(@Nonnull final PaymentIntent paymentIntent) {
+            dispatcher.execute("processPaymentCallback.onSuccess", new Runnable() {
+                @Override
+                public void run() {
+                    lastPaymentIntent = paymentIntent;
+                    if(!hasListeners(EVENT_PROCESS_PAYMENT))
+                        return;
+                    WritableMap processPaymentMap = Arguments.createMap();
+                    processPaymentMap.putMap(INTENT,serializePaymentIntent(paymentIntent,lastCurrency));
+                    sendEventWithName(EVENT_PROCESS_PAYMENT,processPaymentMap);
+                }
+            });
+        }
+
+        @Override
+        public void onFailure(@Nonnull final TerminalException e) {
+            dispatcher.execute("processPaymentCallback.onFailure", new Runnable() {
+                @Override
+                public void run() {
+                    if(!hasListeners(EVENT_PROCESS_PAYMENT))
+                        return;
+                    WritableMap errorMap = Arguments.createMap();
+                    errorMap.putString(ERROR,e.getErrorMessage());
+                    errorMap.putInt(CODE,e.getErrorCode().ordinal());
+                    errorMap.putString(DECLINE_CODE,e.getApiError()!=null?e.getApiError().getDeclineCode():null);
+                    errorMap.putMap(INTENT,serializePaymentIntent(lastPaymentIntent,lastCurrency));
+                    sendEventWithName(EVENT_PROCESS_PAYMENT,errorMap);
+                }
+            });
+        }
+    };
+
+    final PaymentIntentCallback collectPaymentMethodCallback = new PaymentIntentCallback() {
+        @Override
+        public void onSuccess(@Nonnull final PaymentIntent paymentIntent) {
+            dispatcher.execute("collectPaymentMethodCallback.onSuccess", new Runnable() {
+                @Override
+                public void run() {
+                    pendingCreatePaymentIntent = null;
+                    lastPaymentIntent = paymentIntent;
+                    if(!hasListeners(EVENT_PAYMENT_METHOD_COLLECTION))
+                        return;
+                    WritableMap collectPaymentMethodMap = Arguments.createMap();
+                    collectPaymentMethodMap.putMap(INTENT,serializePaymentIntent(paymentIntent,lastCurrency));
+                    sendEventWithName(EVENT_PAYMENT_METHOD_COLLECTION,collectPaymentMethodMap);
+                }
+            });
+        }
+
+        @Override
+        public void onFailure(@Nonnull final TerminalException e) {
+            dispatcher.execute("collectPaymentMethodCallback.onFailure", new Runnable() {
+                @Override
+                public void run() {
+                    pendingCreatePaymentIntent = null;
+                    if(!hasListeners(EVENT_PAYMENT_METHOD_COLLECTION))
+                        return;
+                    WritableMap errorMap = Arguments.createMap();
+                    errorMap.putString(ERROR,e.getErrorMessage());
+                    errorMap.putInt(CODE,e.getErrorCode().ordinal());
+                    errorMap.putMap(INTENT,serializePaymentIntent(lastPaymentIntent,lastCurrency));
+                    sendEventWithName(EVENT_PAYMENT_METHOD_COLLECTION,errorMap);
+                }
+            });
+        }
+    };
+
+    final ReaderCallback connectReaderCallback = new ReaderCallback() {
+        @Override
+        public void onSuccess(@Nonnull final Reader reader) {
+            dispatcher.execute("connectReaderCallback.onSuccess", new Runnable() {
+                @Override
+                public void run() {
+                    if(!hasListeners(EVENT_READER_CONNECTION))
+                        return;
+                    sendEventWithName(EVENT_READER_CONNECTION, serializeReader(reader));
+                }
+            });
+        }
+
+        @Override
+        public void onFailure(@Nonnull final TerminalException e) {
+            dispatcher.execute("connectReaderCallback.onFailure", new Runnable() {
+                @Override
+                public void run() {
+                    WritableMap errorMap = Arguments.createMap();
+                    errorMap.putString(ERROR, e.getErrorMessage());
+                    sendEventWithName(EVENT_READER_CONNECTION, errorMap);
+                }
+            });
+        }
+    };
+
+    final Callback disconnectReaderCallback = new Callback() {
+        @Override
+        public void onSuccess() {
+            dispatcher.execute("disconnectReaderCallback.onSuccess", new Runnable() {
+                @Override
+                public void run() {
+                    sendEventWithName(EVENT_READER_DISCONNECTION_COMPLETION,Arguments.createMap());
+                }
+            });
+        }
+
+        @Override
+        public void onFailure(@Nonnull final TerminalException e) {
+            dispatcher.execute("disconnectReaderCallback.onFailure", new Runnable() {
+                @Override
+                public void run() {
+                    WritableMap errorMap = Arguments.createMap();
+                    errorMap.putString(ERROR,e.getErrorMessage());
+                    sendEventWithName(EVENT_READER_DISCONNECTION_COMPLETION,errorMap);
+                }
+            });
+        }
+    };
+
+    //Pushes of the native cart are coalesced: while one is in flight later changes wait for this
+    final Callback cartDisplayCallback = new Callback() {
+        @Override
+        public void onSuccess() {
+            onCartPushFinished();
+        }
+
+        @Override
+        public void onFailure(@Nonnull TerminalException e) {
+            onCartPushFinished();
+        }
+    };
 
     public RNStripeTerminalModule(ReactApplicationContext reactContext) {
         super(reactContext);
+        TerminalEventRelay.instance.attach(this);
     }
 
     ReactContext getContext(){
@@ -87,107 +337,244 @@ public class RNStripeTerminalModule extends ReactContextBaseJavaModule implement
         return constants;
     }
 
+    boolean hasListeners(String eventName){
+        return listenerRegistry.hasListeners(eventName);
+    }
+
     public void sendEventWithName(String eventName, WritableMap eventData){
-        getContext().getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-                .emit(eventName, eventData);
+        boolean traced = TerminalTrace.begin("sendEventWithName", eventName);
+        try {
+            getContext().getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                    .emit(eventName, eventData);
+        } finally {
+            TerminalTrace.end(traced);
+        }
     }
 
     public void sendEventWithName(String eventName, Object eventData){
-        getContext().getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-                .emit(eventName, eventData);
+        boolean traced = TerminalTrace.begin("sendEventWithName", eventName);
+        try {
+            getContext().getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                    .emit(eventName, eventData);
+        } finally {
+            TerminalTrace.end(traced);
+        }
     }
 
     public void sendEventWithName(String eventName, WritableArray eventData){
-        getContext().getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-                .emit(eventName, eventData);
+        boolean traced = TerminalTrace.begin("sendEventWithName", eventName);
+        try {
+            getContext().getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                    .emit(eventName, eventData);
+        } finally {
+            TerminalTrace.end(traced);
+        }
     }
 
     WritableMap serializeUpdate(ReaderSoftwareUpdate readerSoftwareUpdate){
-        WritableMap writableMap = Arguments.createMap();
-        WritableMap updateMap = Arguments.createMap();
+        boolean traced = TerminalTrace.begin("serializeUpdate");
+        try {
+            WritableMap writableMap = Arguments.createMap();
+            WritableMap updateMap = Arguments.createMap();
 
-        if(readerSoftwareUpdate!=null){
-            ReaderSoftwareUpdate.UpdateTimeEstimate updateTimeEstimate= readerSoftwareUpdate.getTimeEstimate();
-            updateMap.putString(ESTIMATED_UPDATE_TIME,updateTimeEstimate.getDescription());
-            updateMap.putString(DEVICE_SOFTWARE_VERSION,readerSoftwareUpdate.getVersion());
-            writableMap.putMap(UPDATE,updateMap);
-        }
+            if(readerSoftwareUpdate!=null){
+                ReaderSoftwareUpdate.UpdateTimeEstimate updateTimeEstimate= readerSoftwareUpdate.getTimeEstimate();
+                updateMap.putString(ESTIMATED_UPDATE_TIME,updateTimeEstimate.getDescription());
+                updateMap.putString(DEVICE_SOFTWARE_VERSION,readerSoftwareUpdate.getVersion());
+                writableMap.putMap(UPDATE,updateMap);
+            }
 
-        return writableMap;
+            return writableMap;
+        } finally {
+            TerminalTrace.end(traced);
+        }
     }
 
     WritableMap serializeReader(Reader reader) {
-        WritableMap writableMap = Arguments.createMap();
-        if(reader!=null) {
-            double batteryLevel = 0;
-            if(reader.getBatteryLevel()!=null)
-                batteryLevel = (double) reader.getBatteryLevel();
-            writableMap.putDouble(BATTERY_LEVEL, batteryLevel);
-
-            int readerType = 0;
-            if(reader.getDeviceType()!=null)
-                readerType = reader.getDeviceType().ordinal();
-            writableMap.putInt(DEVICE_TYPE, readerType);
-
-            String serial = "";
-
-            if(reader.getSerialNumber()!=null)
-                serial = reader.getSerialNumber();
-            writableMap.putString(SERIAL_NUMBER, serial);
-
-            String softwareVersion = "";
-            if(reader.getSoftwareVersion()!=null)
-                softwareVersion = reader.getSoftwareVersion();
-            writableMap.putString(DEVICE_SOFTWARE_VERSION, softwareVersion);
+        boolean traced = TerminalTrace.begin("serializeReader");
+        try {
+            WritableMap writableMap = Arguments.createMap();
+            if(reader!=null) {
+                double batteryLevel = 0;
+                if(reader.getBatteryLevel()!=null)
+                    batteryLevel = (double) reader.getBatteryLevel();
+                writableMap.putDouble(BATTERY_LEVEL, batteryLevel);
+
+                int readerType = 0;
+                if(reader.getDeviceType()!=null)
+                    readerType = reader.getDeviceType().ordinal();
+                writableMap.putInt(DEVICE_TYPE, readerType);
+
+                String serial = "";
+
+                if(reader.getSerialNumber()!=null)
+                    serial = reader.getSerialNumber();
+                writableMap.putString(SERIAL_NUMBER, serial);
+
+                String softwareVersion = "";
+                if(reader.getSoftwareVersion()!=null)
+                    softwareVersion = reader.getSoftwareVersion();
+                writableMap.putString(DEVICE_SOFTWARE_VERSION, softwareVersion);
+            }
+            return writableMap;
+        } finally {
+            TerminalTrace.end(traced);
         }
-        return writableMap;
     }
 
     WritableMap serializePaymentIntent(PaymentIntent paymentIntent,String currency){
-        WritableMap paymentIntentMap = Arguments.createMap();
-        paymentIntentMap.putString(STRIPE_ID,paymentIntent.getId());
-        SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZZZZ");
-        paymentIntentMap.putString(CREATED,simpleDateFormat.format(new Date(paymentIntent.getCreated())));
-        paymentIntentMap.putInt(STATUS,paymentIntent.getStatus().ordinal());
-        paymentIntentMap.putInt(AMOUNT,(int)paymentIntent.getAmount());
-        paymentIntentMap.putString(CURRENCY,currency);
-        WritableMap metaDataMap = Arguments.createMap();
-        if(paymentIntent.getMetadata()!=null){
-            for(String key:paymentIntent.getMetadata().keySet()){
-                metaDataMap.putString(key,String.valueOf(paymentIntent.getMetadata().get(key)));
+        boolean traced = TerminalTrace.begin("serializePaymentIntent");
+        try {
+            WritableMap paymentIntentMap = Arguments.createMap();
+            paymentIntentMap.putString(STRIPE_ID,paymentIntent.getId());
+            SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZZZZ");
+            paymentIntentMap.putString(CREATED,simpleDateFormat.format(new Date(paymentIntent.getCreated())));
+            paymentIntentMap.putInt(STATUS,paymentIntent.getStatus().ordinal());
+            paymentIntentMap.putInt(AMOUNT,(int)paymentIntent.getAmount());
+            paymentIntentMap.putString(CURRENCY,currency);
+            WritableMap metaDataMap = Arguments.createMap();
+            if(paymentIntent.getMetadata()!=null){
+                for(String key:paymentIntent.getMetadata().keySet()){
+                    metaDataMap.putString(key,String.valueOf(paymentIntent.getMetadata().get(key)));
+                }
             }
+            paymentIntentMap.putMap(METADATA,metaDataMap);
+            return paymentIntentMap;
+        } finally {
+            TerminalTrace.end(traced);
         }
-        paymentIntentMap.putMap(METADATA,metaDataMap);
-        return paymentIntentMap;
     }
 
     @ReactMethod
     public void discoverReaders(int method, int simulated, String locationId ) {
-        boolean isSimulated = simulated == 0?false:true;
+        boolean traced = TerminalTrace.begin("discoverReaders");
+        try {
+            failAutoConnect(pendingAutoConnect, "Auto-connect superseded by discoverReaders");
+            startDiscovery(method, simulated, locationId, discoverReadersCallback, null);
+        } finally {
+            TerminalTrace.end(traced);
+        }
+    }
+
+    /**
+     * Discovers readers and connects to the first one matching serialNumber, or when serialNumber
+     * is empty the first reader in the first update with readers ("first" is the only policy).
+     * Discovery is stopped before connecting. The result is reported as readerConnection.
+     */
+    @ReactMethod
+    public void discoverAndConnect(int method, int simulated, String locationId, String serialNumber, String policy){
+        boolean traced = TerminalTrace.begin("discoverAndConnect");
         try {
-            DiscoveryConfiguration discoveryConfiguration = new DiscoveryConfiguration(0, DiscoveryMethod.INTERNET, isSimulated, locationId);
+            if(policy!=null && !AutoConnectRequest.POLICY_FIRST.equals(policy)){
+                WritableMap errorMap = Arguments.createMap();
+                errorMap.putString(ERROR, "Unsupported auto-connect policy: "+policy);
+                sendEventWithName(EVENT_READER_CONNECTION, errorMap);
+                return;
+            }
+            final AutoConnectRequest request = new AutoConnectRequest(serialNumber, policy, locationId);
+            synchronized (this){
+                pendingAutoConnect = request;
+            }
+
+            //Bound to this request so a late completion from an earlier discovery cannot fail it
             Callback statusCallback = new Callback() {
                 @Override
                 public void onSuccess() {
-                    pendingDiscoverReaders = null;
-                    WritableMap readerCompletionResponse = Arguments.createMap();
-                    sendEventWithName(EVENT_READER_DISCOVERY_COMPLETION,readerCompletionResponse);
+                    discoverReadersCallback.onSuccess();
+                    dispatcher.execute("discoverAndConnect.onSuccess", new Runnable() {
+                        @Override
+                        public void run() {
+                            failAutoConnect(request, "No matching reader found before discovery finished");
+                        }
+                    });
                 }
 
                 @Override
-                public void onFailure(@Nonnull TerminalException e) {
-                    pendingDiscoverReaders = null;
-                    WritableMap errorMap = Arguments.createMap();
-                    errorMap.putString(ERROR, e.getErrorMessage());
-                    sendEventWithName(EVENT_READER_DISCOVERY_COMPLETION,errorMap);
+                public void onFailure(@Nonnull final TerminalException e) {
+                    discoverReadersCallback.onFailure(e);
+                    dispatcher.execute("discoverAndConnect.onFailure", new Runnable() {
+                        @Override
+                        public void run() {
+                            failAutoConnect(request, e.getErrorMessage());
+                        }
+                    });
                 }
             };
+            startDiscovery(method, simulated, locationId, statusCallback, request);
+        } finally {
+            TerminalTrace.end(traced);
+        }
+    }
+
+    /**
+     * Completion for one discovery. pendingDiscoverReaders is only cleared while it still holds
+     * this discovery's handle, so a cancelled scan finishing late cannot orphan its replacement.
+     */
+    class DiscoveryCompletion implements Callback {
+        final Callback statusCallback;
+        //Guarded by discoveryLock
+        Cancelable discovery = null;
+        boolean isFinished = false;
+
+        DiscoveryCompletion(Callback statusCallback){
+            this.statusCallback = statusCallback;
+        }
+
+        void finish(){
+            synchronized (discoveryLock){
+                isFinished = true;
+                if(discovery!=null && pendingDiscoverReaders==discovery)
+                    pendingDiscoverReaders = null;
+            }
+        }
+
+        @Override
+        public void onSuccess() {
+            finish();
+            statusCallback.onSuccess();
+        }
+
+        @Override
+        public void onFailure(@Nonnull TerminalException e) {
+            finish();
+            statusCallback.onFailure(e);
+        }
+    }
+
+    void releaseDiscovery(Cancelable discovery){
+        synchronized (discoveryLock){
+            if(pendingDiscoverReaders==discovery)
+                pendingDiscoverReaders = null;
+        }
+    }
+
+    void startDiscovery(int method, int simulated, String locationId, Callback statusCallback, AutoConnectRequest request){
+        boolean isSimulated = simulated == 0?false:true;
+        try {
+            DiscoveryMethod selectedMethod = DiscoveryMethod.INTERNET;
+            if(method>=0 && method<DiscoveryMethod.values().length)
+                selectedMethod = DiscoveryMethod.values()[method];
+            DiscoveryConfiguration discoveryConfiguration = new DiscoveryConfiguration(0, selectedMethod, isSimulated, locationId);
 
             abortDiscoverReaders();
-            pendingDiscoverReaders = Terminal.getInstance().discoverReaders(discoveryConfiguration, this, statusCallback);
+            discoveryMethod = selectedMethod;
+            synchronized (streamedReaderSerials){
+                streamedReaderSerials.clear();
+            }
+            DiscoveryCompletion completion = new DiscoveryCompletion(statusCallback);
+            //Held across the call so an early completion or reader update sees the handle bound
+            synchronized (discoveryLock){
+                Cancelable discovery = Terminal.getInstance().discoverReaders(discoveryConfiguration, TerminalEventRelay.instance, TerminalTrace.span("discoverReaders", completion));
+                completion.discovery = discovery;
+                if(request!=null)
+                    request.discovery = discovery;
+                if(!completion.isFinished)
+                    pendingDiscoverReaders = discovery;
+            }
 
         }catch (Exception e){
             e.printStackTrace();
+            failAutoConnect(request, e.getMessage()!=null?e.getMessage():"Reader discovery failed");
 
             if(e.getMessage()!=null) {
                 WritableMap writableMap = Arguments.createMap();
@@ -197,504 +584,1066 @@ public class RNStripeTerminalModule extends ReactContextBaseJavaModule implement
         }
     }
 
+    /**
+     * Clears the pending auto-connect if it is still the given request, so only one of the
+     * discovery update and discovery completion paths acts on it.
+     */
+    synchronized boolean takeAutoConnect(AutoConnectRequest request){
+        if(request==null || pendingAutoConnect!=request)
+            return false;
+        pendingAutoConnect = null;
+        return true;
+    }
+
+    void failAutoConnect(AutoConnectRequest request, String message){
+        if(!takeAutoConnect(request))
+            return;
+        WritableMap errorMap = Arguments.createMap();
+        errorMap.putString(ERROR, message);
+        sendEventWithName(EVENT_READER_CONNECTION, errorMap);
+    }
+
+    void autoConnectIfMatched(List<? extends Reader> list){
+        final AutoConnectRequest request = pendingAutoConnect;
+        if(request==null)
+            return;
+        final Reader reader = request.select(list);
+        if(reader==null || !takeAutoConnect(request))
+            return;
+
+        final Cancelable discovery;
+        synchronized (discoveryLock){
+            discovery = request.discovery;
+        }
+        if(discovery!=null && !discovery.isCompleted()){
+            discovery.cancel(new Callback() {
+                @Override
+                public void onSuccess() {
+                    dispatcher.execute("discoverAndConnect.cancel.onSuccess", new Runnable() {
+                        @Override
+                        public void run() {
+                            releaseDiscovery(discovery);
+                            connectToReader(reader, request.locationId);
+                        }
+                    });
+                }
+
+                @Override
+                public void onFailure(@Nonnull TerminalException e) {
+                    dispatcher.execute("discoverAndConnect.cancel.onFailure", new Runnable() {
+                        @Override
+                        public void run() {
+                            connectToReader(reader, request.locationId);
+                        }
+                    });
+                }
+            });
+        }else{
+            connectToReader(reader, request.locationId);
+        }
+    }
+
     @ReactMethod
     public void initialize(com.facebook.react.bridge.Callback callback) {
+        boolean traced = TerminalTrace.begin("initialize");
         try {
-            //Check if stripe is initialized
-            Terminal.getInstance();
+            TerminalEventRelay.instance.attach(this);
+            try {
+                //Check if stripe is initialized
+                Terminal.getInstance();
 
-            WritableMap writableMap = Arguments.createMap();
-            writableMap.putBoolean("isInitialized", true);
-            callback.invoke(writableMap);
-            return;
-        }catch (IllegalStateException e){ }
+                WritableMap writableMap = Arguments.createMap();
+                writableMap.putBoolean("isInitialized", true);
+                callback.invoke(writableMap);
+                return;
+            }catch (IllegalStateException e){ }
 
-        pendingConnectionTokenCallback = null;
-        abortDiscoverReaders();
-        abortCreatePayment();
-        abortInstallUpdate();
-
-        LogLevel logLevel = LogLevel.VERBOSE;
-        ConnectionTokenProvider tokenProvider = this;
-        TerminalListener terminalListener = this;
-        String err = "";
-        boolean isInit =false;
-        try {
-            Terminal.initTerminal(getContext().getApplicationContext(), logLevel, tokenProvider, terminalListener);
-            lastReaderEvent = ReaderEvent.CARD_REMOVED;
-            isInit = true;
-        } catch (TerminalException e) {
-            e.printStackTrace();
-            err = e.getErrorMessage();
-            isInit = false;
-        } catch (IllegalStateException ex){
-            ex.printStackTrace();
-            err=  ex.getMessage();
-            isInit = true;
-        }
+            pendingConnectionTokenCallback = null;
+            abortDiscoverReaders();
+            abortCreatePayment();
+            abortInstallUpdate();
+
+            LogLevel logLevel = LogLevel.VERBOSE;
+            ConnectionTokenProvider tokenProvider = TerminalEventRelay.instance;
+            TerminalListener terminalListener = TerminalEventRelay.instance;
+            String err = "";
+            boolean isInit =false;
+            try {
+                Terminal.initTerminal(getContext().getApplicationContext(), logLevel, tokenProvider, terminalListener);
+                lastReaderEvent = ReaderEvent.CARD_REMOVED;
+                isInit = true;
+            } catch (TerminalException e) {
+                e.printStackTrace();
+                err = e.getErrorMessage();
+                isInit = false;
+            } catch (IllegalStateException ex){
+                ex.printStackTrace();
+                err=  ex.getMessage();
+                isInit = true;
+            }
+
+            WritableMap writableMap = Arguments.createMap();
+            writableMap.putBoolean("isInitialized", isInit);
 
-        WritableMap writableMap = Arguments.createMap();
-        writableMap.putBoolean("isInitialized", isInit);
+            if(!isInit) {
+                writableMap.putString(ERROR, err);
+            }
 
-        if(!isInit) {
-            writableMap.putString(ERROR, err);
+            callback.invoke(writableMap);
+        } finally {
+            TerminalTrace.end(traced);
         }
-
-        callback.invoke(writableMap);
     }
 
     @ReactMethod
     public void setConnectionToken(String token,String errorMsg){
-        if(pendingConnectionTokenCallback!=null){
-            if(errorMsg!=null && !errorMsg.trim().isEmpty()){
-                pendingConnectionTokenCallback.onFailure(new ConnectionTokenException(errorMsg));
-            }else{
-                pendingConnectionTokenCallback.onSuccess(token);
+        boolean traced = TerminalTrace.begin("setConnectionToken");
+        try {
+            ConnectionTokenCallback tokenCallback = takeConnectionTokenCallback();
+            if(tokenCallback!=null){
+                if(errorMsg!=null && !errorMsg.trim().isEmpty()){
+                    tokenCallback.onFailure(new ConnectionTokenException(errorMsg));
+                }else{
+                    tokenCallback.onSuccess(token);
+                }
             }
+        } finally {
+            TerminalTrace.end(traced);
         }
-
-        pendingConnectionTokenCallback = null;
     }
 
     @ReactMethod
-    public void createPayment(final String paymentIntent) {
-        PaymentIntentCallback paymentIntentCallback = new PaymentIntentCallback() {
-            @Override
-            public void onSuccess(@Nonnull final PaymentIntent paymentIntent) {
-                pendingCreatePaymentIntent = Terminal.getInstance().collectPaymentMethod(paymentIntent
-                        , new PaymentIntentCallback() {
-                            @Override
-                            public void onSuccess(@Nonnull final PaymentIntent collectedIntent) {
-                                pendingCreatePaymentIntent = null;
-                                Terminal.getInstance().processPayment(collectedIntent, new PaymentIntentCallback() {
-                                    @Override
-                                    public void onSuccess(@Nonnull PaymentIntent confirmedIntent) {
-                                        WritableMap intentMap = Arguments.createMap();
-                                        String currency = "";
-                                        intentMap.putMap(INTENT, serializePaymentIntent(confirmedIntent, currency));
-                                        sendEventWithName(EVENT_PAYMENT_CREATION, intentMap);
-                                    }
-
-                                    @Override
-                                    public void onFailure(@Nonnull TerminalException e) {
-                                        WritableMap errorMap = Arguments.createMap();
-                                        errorMap.putString(ERROR, e.getErrorMessage());
-                                        errorMap.putInt(CODE, e.getErrorCode().ordinal());
-                                        String currency = "";
-                                        errorMap.putMap(INTENT, serializePaymentIntent(collectedIntent, currency));
-                                        sendEventWithName(EVENT_PAYMENT_CREATION, errorMap);
-                                    }
-                                });
-                            }
-
-                            @Override
-                            public void onFailure(@Nonnull TerminalException e) {
-                                pendingCreatePaymentIntent = null;
-                                WritableMap collectionErrorMap = Arguments.createMap();
-                                collectionErrorMap.putString(ERROR, e.getErrorMessage());
-                                collectionErrorMap.putInt(CODE, e.getErrorCode().ordinal());
-                                String currency = "";
-                                collectionErrorMap.putMap(INTENT, serializePaymentIntent(paymentIntent, currency));
-                                sendEventWithName(EVENT_PAYMENT_CREATION, collectionErrorMap);
-                            }
-                        });
-            }
-
-            @Override
-            public void onFailure(@Nonnull TerminalException e) {
-                WritableMap paymentCreationMap = Arguments.createMap();
-                paymentCreationMap.putString(ERROR, e.getErrorMessage());
-                paymentCreationMap.putInt(CODE, e.getErrorCode().ordinal());
-                sendEventWithName(EVENT_PAYMENT_CREATION, paymentCreationMap);
+    public void setConnectionTokenEndpoint(String url, ReadableMap headers){
+        boolean traced = TerminalTrace.begin("setConnectionTokenEndpoint");
+        try {
+            clearConnectionTokenFetcher();
+
+            WritableMap responseMap = Arguments.createMap();
+            if(url!=null && !url.trim().isEmpty()){
+                try {
+                    HashMap<String,String> headerMap = new HashMap<String,String>();
+                    if(headers!=null){
+                        ReadableMapKeySetIterator iterator = headers.keySetIterator();
+                        while(iterator.hasNextKey()){
+                            String key = iterator.nextKey();
+                            if(headers.getType(key)!=ReadableType.String)
+                                throw new IllegalArgumentException("Header "+key+" must be a string");
+                            headerMap.put(key, headers.getString(key));
+                        }
+                    }
+                    connectionTokenFetcher = new HttpConnectionTokenFetcher(url, headerMap);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    responseMap.putString(ERROR, e.getMessage()!=null?e.getMessage():"Invalid connection token endpoint");
+                }
             }
-        };
+            sendEventWithName(EVENT_CONNECTION_TOKEN_ENDPOINT, responseMap);
+        } finally {
+            TerminalTrace.end(traced);
+        }
+    }
 
-     
-        Terminal.getInstance().retrievePaymentIntent(paymentIntent, paymentIntentCallback);
-     
+    void clearConnectionTokenFetcher(){
+        HttpConnectionTokenFetcher fetcher = connectionTokenFetcher;
+        connectionTokenFetcher = null;
+        if(fetcher!=null){
+            fetcher.shutdown();
+        }
     }
 
     @ReactMethod
-    public void retrievePaymentIntent(String clientSecret){
-        if(clientSecret!=null) {
-            Terminal.getInstance().retrievePaymentIntent(clientSecret, new PaymentIntentCallback() {
+    public void createPayment(final String paymentIntent) {
+        boolean traced = TerminalTrace.begin("createPayment");
+        try {
+            final int createPaymentTraceCookie = TerminalTrace.beginAsync("createPayment");
+            PaymentIntentCallback paymentIntentCallback = new PaymentIntentCallback() {
                 @Override
-                public void onSuccess(@Nonnull PaymentIntent paymentIntent) {
-                    lastPaymentIntent  = paymentIntent;
-                    WritableMap paymentRetrieveRespMap = Arguments.createMap();
-                    paymentRetrieveRespMap.putMap(INTENT,serializePaymentIntent(paymentIntent,"")); //No currency for android
-                    sendEventWithName(EVENT_PAYMENT_INTENT_RETRIEVAL, paymentRetrieveRespMap);
+                public void onSuccess(@Nonnull final PaymentIntent paymentIntent) {
+                    dispatcher.execute("createPayment.retrieve.onSuccess", new Runnable() {
+                        @Override
+                        public void run() {
+                            pendingCreatePaymentIntent = Terminal.getInstance().collectPaymentMethod(paymentIntent
+                                    , new PaymentIntentCallback() {
+                                        @Override
+                                        public void onSuccess(@Nonnull final PaymentIntent collectedIntent) {
+                                            dispatcher.execute("createPayment.collect.onSuccess", new Runnable() {
+                                                @Override
+                                                public void run() {
+                                                    pendingCreatePaymentIntent = null;
+                                                    Terminal.getInstance().processPayment(collectedIntent, new PaymentIntentCallback() {
+                                                        @Override
+                                                        public void onSuccess(@Nonnull final PaymentIntent confirmedIntent) {
+                                                            dispatcher.execute("createPayment.process.onSuccess", new Runnable() {
+                                                                @Override
+                                                                public void run() {
+                                                                    TerminalTrace.endAsync("createPayment", createPaymentTraceCookie);
+                                                                    if(!hasListeners(EVENT_PAYMENT_CREATION))
+                                                                        return;
+                                                                    WritableMap intentMap = Arguments.createMap();
+                                                                    String currency = "";
+                                                                    intentMap.putMap(INTENT, serializePaymentIntent(confirmedIntent, currency));
+                                                                    sendEventWithName(EVENT_PAYMENT_CREATION, intentMap);
+                                                                }
+                                                            });
+                                                        }
+
+                                                        @Override
+                                                        public void onFailure(@Nonnull final TerminalException e) {
+                                                            dispatcher.execute("createPayment.process.onFailure", new Runnable() {
+                                                                @Override
+                                                                public void run() {
+                                                                    TerminalTrace.endAsync("createPayment", createPaymentTraceCookie);
+                                                                    if(!hasListeners(EVENT_PAYMENT_CREATION))
+                                                                        return;
+                                                                    WritableMap errorMap = Arguments.createMap();
+                                                                    errorMap.putString(ERROR, e.getErrorMessage());
+                                                                    errorMap.putInt(CODE, e.getErrorCode().ordinal());
+                                                                    String currency = "";
+                                                                    errorMap.putMap(INTENT, serializePaymentIntent(collectedIntent, currency));
+                                                                    sendEventWithName(EVENT_PAYMENT_CREATION, errorMap);
+                                                                }
+                                                            });
+                                                        }
+                                                    });
+                                                }
+                                            });
+                                        }
+
+                                        @Override
+                                        public void onFailure(@Nonnull final TerminalException e) {
+                                            dispatcher.execute("createPayment.collect.onFailure", new Runnable() {
+                                                @Override
+                                                public void run() {
+                                                    TerminalTrace.endAsync("createPayment", createPaymentTraceCookie);
+                                                    pendingCreatePaymentIntent = null;
+                                                    if(!hasListeners(EVENT_PAYMENT_CREATION))
+                                                        return;
+                                                    WritableMap collectionErrorMap = Arguments.createMap();
+                                                    collectionErrorMap.putString(ERROR, e.getErrorMessage());
+                                                    collectionErrorMap.putInt(CODE, e.getErrorCode().ordinal());
+                                                    String currency = "";
+                                                    collectionErrorMap.putMap(INTENT, serializePaymentIntent(paymentIntent, currency));
+                                                    sendEventWithName(EVENT_PAYMENT_CREATION, collectionErrorMap);
+                                                }
+                                            });
+                                        }
+                                    });
+                        }
+                    });
                 }
 
                 @Override
-                public void onFailure(@Nonnull TerminalException e) {
-                    lastPaymentIntent = null;
-                    WritableMap paymentRetrieveRespMap = Arguments.createMap();
-                    paymentRetrieveRespMap.putString(ERROR,e.getErrorMessage());
-                    sendEventWithName(EVENT_PAYMENT_INTENT_RETRIEVAL, paymentRetrieveRespMap);
+                public void onFailure(@Nonnull final TerminalException e) {
+                    dispatcher.execute("createPayment.retrieve.onFailure", new Runnable() {
+                        @Override
+                        public void run() {
+                            TerminalTrace.endAsync("createPayment", createPaymentTraceCookie);
+                            if(!hasListeners(EVENT_PAYMENT_CREATION))
+                                return;
+                            WritableMap paymentCreationMap = Arguments.createMap();
+                            paymentCreationMap.putString(ERROR, e.getErrorMessage());
+                            paymentCreationMap.putInt(CODE, e.getErrorCode().ordinal());
+                            sendEventWithName(EVENT_PAYMENT_CREATION, paymentCreationMap);
+                        }
+                    });
                 }
-            });
-        }else{
-            WritableMap paymentRetrieveRespMap = Arguments.createMap();
-            paymentRetrieveRespMap.putString(ERROR,"Client secret cannot be null");
-            sendEventWithName(EVENT_PAYMENT_INTENT_RETRIEVAL, paymentRetrieveRespMap);
+            };
+
+     
+            try {
+                Terminal.getInstance().retrievePaymentIntent(paymentIntent, paymentIntentCallback);
+            } catch (RuntimeException e){
+                //No callback will end the span if the SDK refuses the call
+                TerminalTrace.endAsync("createPayment", createPaymentTraceCookie);
+                throw e;
+            }
+     
+        } finally {
+            TerminalTrace.end(traced);
         }
     }
 
     @ReactMethod
-    public void cancelPaymentIntent(){
-        Terminal.getInstance().cancelPaymentIntent(lastPaymentIntent, new PaymentIntentCallback() {
-            @Override
-            public void onSuccess(@Nonnull PaymentIntent paymentIntent) {
-                WritableMap paymentIntentCancelMap = Arguments.createMap();
-                paymentIntentCancelMap.putMap(INTENT,serializePaymentIntent(paymentIntent,lastCurrency));
-                sendEventWithName(EVENT_PAYMENT_INTENT_CANCEL,paymentIntentCancelMap);
+    public void retrievePaymentIntent(String clientSecret){
+        boolean traced = TerminalTrace.begin("retrievePaymentIntent");
+        try {
+            if(clientSecret!=null) {
+                Terminal.getInstance().retrievePaymentIntent(clientSecret, TerminalTrace.span("retrievePaymentIntent", retrievePaymentIntentCallback));
+            }else{
+                WritableMap paymentRetrieveRespMap = Arguments.createMap();
+                paymentRetrieveRespMap.putString(ERROR,"Client secret cannot be null");
+                sendEventWithName(EVENT_PAYMENT_INTENT_RETRIEVAL, paymentRetrieveRespMap);
             }
+        } finally {
+            TerminalTrace.end(traced);
+        }
+    }
 
-            @Override
-            public void onFailure(@Nonnull TerminalException e) {
-                WritableMap errorMap = Arguments.createMap();
-                errorMap.putString(ERROR,e.getErrorMessage());
-                errorMap.putInt(CODE,e.getErrorCode().ordinal());
-                errorMap.putMap(INTENT,serializePaymentIntent(lastPaymentIntent,lastCurrency));
-                sendEventWithName(EVENT_PAYMENT_INTENT_CANCEL,errorMap);
-            }
-        });
+    @ReactMethod
+    public void cancelPaymentIntent(){
+        boolean traced = TerminalTrace.begin("cancelPaymentIntent");
+        try {
+            Terminal.getInstance().cancelPaymentIntent(lastPaymentIntent, TerminalTrace.span("cancelPaymentIntent", cancelPaymentIntentCallback));
+        } finally {
+            TerminalTrace.end(traced);
+        }
     }
 
     @ReactMethod
     public void processPayment(){
-        Terminal.getInstance().processPayment(lastPaymentIntent, new PaymentIntentCallback() {
-            @Override
-            public void onSuccess(@Nonnull PaymentIntent paymentIntent) {
-                lastPaymentIntent = paymentIntent;
-                WritableMap processPaymentMap = Arguments.createMap();
-                processPaymentMap.putMap(INTENT,serializePaymentIntent(paymentIntent,lastCurrency));
-                sendEventWithName(EVENT_PROCESS_PAYMENT,processPaymentMap);
-            }
-
-            @Override
-            public void onFailure(@Nonnull TerminalException e) {
-                WritableMap errorMap = Arguments.createMap();
-                errorMap.putString(ERROR,e.getErrorMessage());
-                errorMap.putInt(CODE,e.getErrorCode().ordinal());
-                errorMap.putString(DECLINE_CODE,e.getApiError().getDeclineCode());
-                errorMap.putMap(INTENT,serializePaymentIntent(lastPaymentIntent,lastCurrency));
-                sendEventWithName(EVENT_PROCESS_PAYMENT,errorMap);
-            }
-        });
+        boolean traced = TerminalTrace.begin("processPayment");
+        try {
+            Terminal.getInstance().processPayment(lastPaymentIntent, TerminalTrace.span("processPayment", processPaymentCallback));
+        } finally {
+            TerminalTrace.end(traced);
+        }
     }
 
     @ReactMethod
     public void collectPaymentMethod(){
-        pendingCreatePaymentIntent = Terminal.getInstance().collectPaymentMethod(lastPaymentIntent, new PaymentIntentCallback() {
-            @Override
-            public void onSuccess(@Nonnull PaymentIntent paymentIntent) {
-                pendingCreatePaymentIntent = null;
-                lastPaymentIntent = paymentIntent;
-                WritableMap collectPaymentMethodMap = Arguments.createMap();
-                collectPaymentMethodMap.putMap(INTENT,serializePaymentIntent(paymentIntent,lastCurrency));
-                sendEventWithName(EVENT_PAYMENT_METHOD_COLLECTION,collectPaymentMethodMap);
-            }
-
-            @Override
-            public void onFailure(@Nonnull TerminalException e) {
-                pendingCreatePaymentIntent = null;
-                WritableMap errorMap = Arguments.createMap();
-                errorMap.putString(ERROR,e.getErrorMessage());
-                errorMap.putInt(CODE,e.getErrorCode().ordinal());
-                errorMap.putMap(INTENT,serializePaymentIntent(lastPaymentIntent,lastCurrency));
-                sendEventWithName(EVENT_PAYMENT_METHOD_COLLECTION,errorMap);
-            }
-        });
+        boolean traced = TerminalTrace.begin("collectPaymentMethod");
+        try {
+            pendingCreatePaymentIntent = Terminal.getInstance().collectPaymentMethod(lastPaymentIntent, TerminalTrace.span("collectPaymentMethod", collectPaymentMethodCallback));
+        } finally {
+            TerminalTrace.end(traced);
+        }
     }
 
     @ReactMethod
     public void connectReader(String serialNumber, String locationId){
-        Reader selectedReader = null;
-        if(discoveredReadersList!=null && discoveredReadersList.size()>0){
-            for(Reader reader:discoveredReadersList){
-                if(reader!=null){
-                    if(reader.getSerialNumber().equals(serialNumber)){
-                        selectedReader  = reader;
+        boolean traced = TerminalTrace.begin("connectReader");
+        try {
+            Reader selectedReader = null;
+            if(discoveredReadersList!=null && discoveredReadersList.size()>0){
+                for(Reader reader:discoveredReadersList){
+                    if(reader!=null){
+                        if(reader.getSerialNumber().equals(serialNumber)){
+                            selectedReader  = reader;
+                        }
                     }
                 }
             }
-        }
 
-        if(selectedReader!=null) {
-            InternetConnectionConfiguration config = new InternetConnectionConfiguration();
-            Terminal.getInstance().connectInternetReader(selectedReader, config, new ReaderCallback() {
-                @Override
-                public void onSuccess(@Nonnull Reader reader) {
-                    sendEventWithName(EVENT_READER_CONNECTION, serializeReader(reader));
-                }
-
-                @Override
-                public void onFailure(@Nonnull TerminalException e) {
-                    WritableMap errorMap = Arguments.createMap();
-                    errorMap.putString(ERROR, e.getErrorMessage());
-                    sendEventWithName(EVENT_READER_CONNECTION, errorMap);
-                }
-            });
+            if(selectedReader!=null) {
+                connectToReader(selectedReader, locationId);
+            }else{
+                WritableMap errorMap = Arguments.createMap();
+                errorMap.putString(ERROR, "No reader found with provided serial number");
+                sendEventWithName(EVENT_READER_CONNECTION,errorMap);
+            }
+        } finally {
+            TerminalTrace.end(traced);
+        }
+    }
+
+    void connectToReader(Reader reader, String locationId){
+        ReaderCallback callback = TerminalTrace.span("connectReader", connectReaderCallback);
+        if(discoveryMethod==DiscoveryMethod.BLUETOOTH_SCAN){
+            BluetoothConnectionConfiguration config = new BluetoothConnectionConfiguration(locationId);
+            Terminal.getInstance().connectBluetoothReader(reader, config, TerminalEventRelay.instance, callback);
         }else{
-            WritableMap errorMap = Arguments.createMap();
-            errorMap.putString(ERROR, "No reader found with provided serial number");
-            sendEventWithName(EVENT_READER_CONNECTION,errorMap);
+            InternetConnectionConfiguration config = new InternetConnectionConfiguration();
+            Terminal.getInstance().connectInternetReader(reader, config, callback);
         }
     }
 
     @ReactMethod
     public void disconnectReader(){
-       if(Terminal.getInstance().getConnectedReader()==null){
-           sendEventWithName(EVENT_READER_DISCONNECTION_COMPLETION,Arguments.createMap());
-       }else{
-           Terminal.getInstance().disconnectReader(new Callback() {
-               @Override
-               public void onSuccess() {
-                   sendEventWithName(EVENT_READER_DISCONNECTION_COMPLETION,Arguments.createMap());
-               }
-
-               @Override
-               public void onFailure(@Nonnull TerminalException e) {
-                    WritableMap errorMap = Arguments.createMap();
-                    errorMap.putString(ERROR,e.getErrorMessage());
-                    sendEventWithName(EVENT_READER_DISCONNECTION_COMPLETION,errorMap);
-               }
-           });
-       }
+        boolean traced = TerminalTrace.begin("disconnectReader");
+        try {
+           if(Terminal.getInstance().getConnectedReader()==null){
+               sendEventWithName(EVENT_READER_DISCONNECTION_COMPLETION,Arguments.createMap());
+           }else{
+               Terminal.getInstance().disconnectReader(TerminalTrace.span("disconnectReader", disconnectReaderCallback));
+           }
+        } finally {
+            TerminalTrace.end(traced);
+        }
     }
 
     @ReactMethod
     public void getLastReaderEvent(){
-        sendEventWithName(EVENT_LAST_READER_EVENT,new Integer(lastReaderEvent.ordinal()));
+        boolean traced = TerminalTrace.begin("getLastReaderEvent");
+        try {
+            sendEventWithName(EVENT_LAST_READER_EVENT,new Integer(lastReaderEvent.ordinal()));
+        } finally {
+            TerminalTrace.end(traced);
+        }
     }
 
     @ReactMethod
     public void getConnectedReader(){
-        Reader reader = Terminal.getInstance().getConnectedReader();
-        sendEventWithName(EVENT_CONNECTED_READER,serializeReader(reader));
+        boolean traced = TerminalTrace.begin("getConnectedReader");
+        try {
+            Reader reader = Terminal.getInstance().getConnectedReader();
+            sendEventWithName(EVENT_CONNECTED_READER,serializeReader(reader));
+        } finally {
+            TerminalTrace.end(traced);
+        }
     }
 
     @ReactMethod
     public void abortDiscoverReaders(){
-        if(pendingDiscoverReaders!=null && !pendingDiscoverReaders.isCompleted()){
-            pendingDiscoverReaders.cancel(new Callback() {
-                @Override
-                public void onSuccess() {
-                    pendingDiscoverReaders = null;
-                    sendEventWithName(EVENT_ABORT_DISCOVER_READER_COMPLETION,Arguments.createMap());
-                }
+        boolean traced = TerminalTrace.begin("abortDiscoverReaders");
+        try {
+            final Cancelable discovery = pendingDiscoverReaders;
+            if(discovery!=null && !discovery.isCompleted()){
+                discovery.cancel(new Callback() {
+                    @Override
+                    public void onSuccess() {
+                        dispatcher.execute("abortDiscoverReaders.onSuccess", new Runnable() {
+                            @Override
+                            public void run() {
+                                releaseDiscovery(discovery);
+                                sendEventWithName(EVENT_ABORT_DISCOVER_READER_COMPLETION,Arguments.createMap());
+                            }
+                        });
+                    }
 
-                @Override
-                public void onFailure(@Nonnull TerminalException e) {
-                    WritableMap errorMap  = Arguments.createMap();
-                    errorMap.putString(ERROR,e.getErrorMessage());
-                    sendEventWithName(EVENT_ABORT_DISCOVER_READER_COMPLETION,errorMap);
-                }
-            });
-        }else{
-            sendEventWithName(EVENT_ABORT_DISCOVER_READER_COMPLETION,Arguments.createMap());
+                    @Override
+                    public void onFailure(@Nonnull final TerminalException e) {
+                        dispatcher.execute("abortDiscoverReaders.onFailure", new Runnable() {
+                            @Override
+                            public void run() {
+                                WritableMap errorMap  = Arguments.createMap();
+                                errorMap.putString(ERROR,e.getErrorMessage());
+                                sendEventWithName(EVENT_ABORT_DISCOVER_READER_COMPLETION,errorMap);
+                            }
+                        });
+                    }
+                });
+            }else{
+                sendEventWithName(EVENT_ABORT_DISCOVER_READER_COMPLETION,Arguments.createMap());
+            }
+        } finally {
+            TerminalTrace.end(traced);
         }
     }
 
     @ReactMethod
     public void abortCreatePayment(){
-        if(pendingCreatePaymentIntent!=null && !pendingCreatePaymentIntent.isCompleted()){
-            pendingCreatePaymentIntent.cancel(new Callback() {
-                @Override
-                public void onSuccess() {
-                    pendingCreatePaymentIntent = null;
-                    sendEventWithName(EVENT_ABORT_CREATE_PAYMENT_COMPLETION,Arguments.createMap());
-                }
+        boolean traced = TerminalTrace.begin("abortCreatePayment");
+        try {
+            if(pendingCreatePaymentIntent!=null && !pendingCreatePaymentIntent.isCompleted()){
+                pendingCreatePaymentIntent.cancel(new Callback() {
+                    @Override
+                    public void onSuccess() {
+                        dispatcher.execute("abortCreatePayment.onSuccess", new Runnable() {
+                            @Override
+                            public void run() {
+                                pendingCreatePaymentIntent = null;
+                                sendEventWithName(EVENT_ABORT_CREATE_PAYMENT_COMPLETION,Arguments.createMap());
+                            }
+                        });
+                    }
 
-                @Override
-                public void onFailure(@Nonnull TerminalException e) {
-                    WritableMap errorMap = Arguments.createMap();
-                    errorMap.putString(ERROR,e.getErrorMessage());
-                    sendEventWithName(EVENT_ABORT_CREATE_PAYMENT_COMPLETION,errorMap);
-                }
-            });
-        }else{
-            sendEventWithName(EVENT_ABORT_CREATE_PAYMENT_COMPLETION,Arguments.createMap());
+                    @Override
+                    public void onFailure(@Nonnull final TerminalException e) {
+                        dispatcher.execute("abortCreatePayment.onFailure", new Runnable() {
+                            @Override
+                            public void run() {
+                                WritableMap errorMap = Arguments.createMap();
+                                errorMap.putString(ERROR,e.getErrorMessage());
+                                sendEventWithName(EVENT_ABORT_CREATE_PAYMENT_COMPLETION,errorMap);
+                            }
+                        });
+                    }
+                });
+            }else{
+                sendEventWithName(EVENT_ABORT_CREATE_PAYMENT_COMPLETION,Arguments.createMap());
+            }
+        } finally {
+            TerminalTrace.end(traced);
         }
     }
 
     @ReactMethod
     public void clearCachedCredentials(){
-        Terminal.getInstance().clearCachedCredentials();
+        boolean traced = TerminalTrace.begin("clearCachedCredentials");
+        try {
+            Terminal.getInstance().clearCachedCredentials();
+        } finally {
+            TerminalTrace.end(traced);
+        }
     }
 
     @ReactMethod
     public void abortInstallUpdate(){
-        if(pendingInstallUpdate!=null && !pendingInstallUpdate.isCompleted()){
-            pendingInstallUpdate.cancel(new Callback() {
-                @Override
-                public void onSuccess() {
-                    pendingInstallUpdate = null;
-                    sendEventWithName(EVENT_ABORT_INSTALL_COMPLETION,Arguments.createMap());
-                }
+        boolean traced = TerminalTrace.begin("abortInstallUpdate");
+        try {
+            if(pendingInstallUpdate!=null && !pendingInstallUpdate.isCompleted()){
+                pendingInstallUpdate.cancel(new Callback() {
+                    @Override
+                    public void onSuccess() {
+                        dispatcher.execute("abortInstallUpdate.onSuccess", new Runnable() {
+                            @Override
+                            public void run() {
+                                pendingInstallUpdate = null;
+                                sendEventWithName(EVENT_ABORT_INSTALL_COMPLETION,Arguments.createMap());
+                            }
+                        });
+                    }
 
-                @Override
-                public void onFailure(@Nonnull TerminalException e) {
-                    WritableMap errorMap = Arguments.createMap();
-                    errorMap.putString(ERROR,e.getErrorMessage());
-                    sendEventWithName(EVENT_ABORT_INSTALL_COMPLETION,errorMap);
-                }
-            });
-        }else{
-            sendEventWithName(EVENT_ABORT_INSTALL_COMPLETION,Arguments.createMap());
+                    @Override
+                    public void onFailure(@Nonnull final TerminalException e) {
+                        dispatcher.execute("abortInstallUpdate.onFailure", new Runnable() {
+                            @Override
+                            public void run() {
+                                WritableMap errorMap = Arguments.createMap();
+                                errorMap.putString(ERROR,e.getErrorMessage());
+                                sendEventWithName(EVENT_ABORT_INSTALL_COMPLETION,errorMap);
+                            }
+                        });
+                    }
+                });
+            }else{
+                sendEventWithName(EVENT_ABORT_INSTALL_COMPLETION,Arguments.createMap());
+            }
+        } finally {
+            TerminalTrace.end(traced);
         }
     }
 
     @ReactMethod
     public void getConnectionStatus(){
-        ConnectionStatus status = Terminal.getInstance().getConnectionStatus();
-        sendEventWithName(EVENT_CONNECTION_STATUS, status.ordinal());
+        boolean traced = TerminalTrace.begin("getConnectionStatus");
+        try {
+            ConnectionStatus status = Terminal.getInstance().getConnectionStatus();
+            sendEventWithName(EVENT_CONNECTION_STATUS, status.ordinal());
+        } finally {
+            TerminalTrace.end(traced);
+        }
     }
 
     @ReactMethod
     public void setReaderDisplay(int cartValue, ReadableArray cartItems){
-        List<CartLineItem> cartItemsTransformed = new ArrayList();
-        if(cartItems!=null){
-            for (int i = 0; i <  cartItems.size(); i++) {
-                ReadableMap item = cartItems.getMap(i);
-                if (item == null) {
-                    continue;
+        boolean traced = TerminalTrace.begin("setReaderDisplay");
+        try {
+            List<CartLineItem> cartItemsTransformed = new ArrayList();
+            if(cartItems!=null){
+                for (int i = 0; i <  cartItems.size(); i++) {
+                    ReadableMap item = cartItems.getMap(i);
+                    if (item == null) {
+                        continue;
+                    };
+                    String description = item.getString("description");
+                    int quantity = item.getInt("quantity");
+                    int value = item.getInt("value");
+                    cartItemsTransformed.add(new CartLineItem.Builder(description,quantity,value).build());
                 };
-                String description = item.getString("description");
-                int quantity = item.getInt("quantity");
-                int value = item.getInt("value");
-                cartItemsTransformed.add(new CartLineItem.Builder(description,quantity,value).build());
-            };
-        }
+            }
        
        
-        Cart.Builder cart = new Cart.Builder("gbp", 0, cartValue, cartItemsTransformed);
-        Terminal.getInstance().setReaderDisplay(cart.build(), new Callback() {
-            @Override
-                public void onSuccess() {
-                // Placeholder for handling successful operation
-                }
+            Cart.Builder cart = new Cart.Builder(ReaderCart.CURRENCY, 0, cartValue, cartItemsTransformed);
+            Terminal.getInstance().setReaderDisplay(cart.build(), noOpCallback);
+            discardNativeCart();
+        } finally {
+            TerminalTrace.end(traced);
+        }
+    }
+    @ReactMethod
+    public void resetReaderDisplay(){
+        boolean traced = TerminalTrace.begin("resetReaderDisplay");
+        try {
+            Terminal.getInstance().clearReaderDisplay(noOpCallback);
+            discardNativeCart();
+        } finally {
+            TerminalTrace.end(traced);
+        }
+    }
 
-            @Override
-            public void onFailure(TerminalException e) {
-            // Placeholder for handling exception
+    @ReactMethod
+    public void cartPutLineItem(String id, String description, int quantity, int value){
+        boolean traced = TerminalTrace.begin("cartPutLineItem");
+        try {
+            readerCart.put(id, description, quantity, value);
+            onCartChanged();
+        } finally {
+            TerminalTrace.end(traced);
+        }
+    }
+
+    @ReactMethod
+    public void cartUpdateLineItem(String id, int quantity, int value){
+        boolean traced = TerminalTrace.begin("cartUpdateLineItem");
+        try {
+            if(readerCart.update(id, quantity, value)){
+                onCartChanged();
+            }else{
+                sendCartError("No cart line item found with id "+id);
             }
-        });
+        } finally {
+            TerminalTrace.end(traced);
+        }
     }
+
     @ReactMethod
-    public void resetReaderDisplay(){
-        Terminal.getInstance().clearReaderDisplay(new Callback() {
-            @Override
-                public void onSuccess() {
-                // Placeholder for handling successful operation
-                }
+    public void cartRemoveLineItem(String id){
+        boolean traced = TerminalTrace.begin("cartRemoveLineItem");
+        try {
+            if(readerCart.remove(id)){
+                onCartChanged();
+            }else{
+                sendCartError("No cart line item found with id "+id);
+            }
+        } finally {
+            TerminalTrace.end(traced);
+        }
+    }
 
-            @Override
-            public void onFailure(TerminalException e) {
-            // Placeholder for handling exception
+    @ReactMethod
+    public void cartClear(){
+        boolean traced = TerminalTrace.begin("cartClear");
+        try {
+            readerCart.clear();
+            onCartChanged();
+        } finally {
+            TerminalTrace.end(traced);
+        }
+    }
+
+    void onCartChanged(){
+        pushCartToReader();
+        sendCartUpdate();
+    }
+
+    /**
+     * setReaderDisplay and resetReaderDisplay take over the display, so the native cart is
+     * emptied (without a push) and the next delta starts from a fresh cart instead of
+     * redrawing stale lines.
+     */
+    void discardNativeCart(){
+        synchronized (cartPushLock){
+            cartPushPending = false;
+        }
+        if(readerCart.size()==0)
+            return;
+        readerCart.clear();
+        sendCartUpdate();
+    }
+
+    void sendCartUpdate(){
+        if(!hasListeners(EVENT_CART_UPDATE))
+            return;
+        WritableMap cartMap = Arguments.createMap();
+        cartMap.putDouble(AMOUNT, readerCart.getTotal());
+        cartMap.putInt(LINE_COUNT, readerCart.size());
+        sendEventWithName(EVENT_CART_UPDATE, cartMap);
+    }
+
+    void sendCartError(String message){
+        if(!hasListeners(EVENT_CART_UPDATE))
+            return;
+        WritableMap errorMap = Arguments.createMap();
+        errorMap.putString(ERROR, message);
+        sendEventWithName(EVENT_CART_UPDATE, errorMap);
+    }
+
+    void pushCartToReader(){
+        synchronized (cartPushLock){
+            if(cartPushInFlight){
+                cartPushPending = true;
+                return;
             }
-        });
+            cartPushInFlight = true;
+            cartPushPending = false;
+        }
+
+        try {
+            if(readerCart.size()==0){
+                Terminal.getInstance().clearReaderDisplay(cartDisplayCallback);
+            }else{
+                Terminal.getInstance().setReaderDisplay(readerCart.build(), cartDisplayCallback);
+            }
+        }catch (IllegalStateException e){
+            e.printStackTrace();
+            synchronized (cartPushLock){
+                cartPushInFlight = false;
+            }
+        }
+    }
+
+    void onCartPushFinished(){
+        boolean pushAgain;
+        synchronized (cartPushLock){
+            cartPushInFlight = false;
+            pushAgain = cartPushPending;
+        }
+        if(pushAgain){
+            pushCartToReader();
+        }
     }
     @ReactMethod
     public void getPaymentStatus(){
-        PaymentStatus status = Terminal.getInstance().getPaymentStatus();
-        sendEventWithName(EVENT_PAYMENT_STATUS, status.ordinal());
+        boolean traced = TerminalTrace.begin("getPaymentStatus");
+        try {
+            PaymentStatus status = Terminal.getInstance().getPaymentStatus();
+            sendEventWithName(EVENT_PAYMENT_STATUS, status.ordinal());
+        } finally {
+            TerminalTrace.end(traced);
+        }
     }
 
     @Override
-    public void onUpdateDiscoveredReaders(@Nonnull List<? extends Reader> list) {
-        discoveredReadersList = list;
-        WritableArray readersDiscoveredArr = Arguments.createArray();
-        for(Reader reader : list){
-            if(reader!=null){
-                readersDiscoveredArr.pushMap(serializeReader(reader));
+    public void onUpdateDiscoveredReaders(@Nonnull final List<? extends Reader> list) {
+        dispatcher.execute("onUpdateDiscoveredReaders", new Runnable() {
+            @Override
+            public void run() {
+                discoveredReadersList = list;
+                autoConnectIfMatched(list);
+                streamNewReaders(list);
+                if(!hasListeners(EVENT_READERS_DISCOVERED))
+                    return;
+                WritableArray readersDiscoveredArr = Arguments.createArray();
+                for(Reader reader : list){
+                    if(reader!=null){
+                        readersDiscoveredArr.pushMap(serializeReader(reader));
+                    }
+                }
+
+                sendEventWithName(EVENT_READERS_DISCOVERED,readersDiscoveredArr);
             }
-        }
+        });
+    }
+
+    /**
+     * Emits each reader once, the first time it shows up in a discovery update while someone is
+     * listening, in the order the SDK listed them. Reader in SDK 2.x carries no RSSI, so readers
+     * cannot be ordered by signal strength.
+     */
+    void streamNewReaders(List<? extends Reader> list){
+        if(!hasListeners(EVENT_READER_DISCOVERED))
+            return;
+        for(Reader reader:list){
+            if(reader==null || reader.getSerialNumber()==null)
+                continue;
 
-        sendEventWithName(EVENT_READERS_DISCOVERED,readersDiscoveredArr);
+            boolean isNew;
+            synchronized (streamedReaderSerials){
+                isNew = streamedReaderSerials.add(reader.getSerialNumber());
+            }
+            if(isNew)
+                sendEventWithName(EVENT_READER_DISCOVERED, serializeReader(reader));
+        }
     }
 
+    /**
+     * Not dispatched: the SDK blocks until this callback completes, so it must never sit in (or be
+     * dropped from) the dispatcher queue. Every callback is either answered by setConnectionToken
+     * or failed on replacement or teardown.
+     */
     @Override
-    public void fetchConnectionToken(@Nonnull ConnectionTokenCallback connectionTokenCallback) {
-        pendingConnectionTokenCallback = connectionTokenCallback;
+    public void fetchConnectionToken(@Nonnull ConnectionTokenCallback callback) {
+        ConnectionTokenCallback connectionTokenCallback = TerminalTrace.span("fetchConnectionToken", callback);
+        HttpConnectionTokenFetcher fetcher = connectionTokenFetcher;
+        if(fetcher!=null){
+            fetcher.fetchConnectionToken(connectionTokenCallback);
+            return;
+        }
+
+        ConnectionTokenCallback replaced = null;
+        boolean released;
+        synchronized (this){
+            released = isReleased;
+            if(!released){
+                replaced = pendingConnectionTokenCallback;
+                pendingConnectionTokenCallback = connectionTokenCallback;
+            }
+        }
+        if(released){
+            connectionTokenCallback.onFailure(new ConnectionTokenException("React instance was destroyed"));
+            return;
+        }
+        if(replaced!=null){
+            replaced.onFailure(new ConnectionTokenException("Superseded by a newer connection token request"));
+        }
         sendEventWithName(EVENT_REQUEST_CONNECTION_TOKEN,Arguments.createMap());
     }
 
+    synchronized ConnectionTokenCallback takeConnectionTokenCallback(){
+        ConnectionTokenCallback tokenCallback = pendingConnectionTokenCallback;
+        pendingConnectionTokenCallback = null;
+        return tokenCallback;
+    }
+
     @Override
     public void onReportLowBatteryWarning() {
-       sendEventWithName(EVENT_DID_REPORT_LOW_BATTERY_WARNING,Arguments.createMap());
+        dispatcher.execute("onReportLowBatteryWarning", new Runnable() {
+            @Override
+            public void run() {
+               if(!hasListeners(EVENT_DID_REPORT_LOW_BATTERY_WARNING))
+                   return;
+               sendEventWithName(EVENT_DID_REPORT_LOW_BATTERY_WARNING,Arguments.createMap());
+            }
+        });
     }
 
     @Override
-    public void onConnectionStatusChange(@Nonnull ConnectionStatus status) {
-        WritableMap statusMap = Arguments.createMap();
-        statusMap.putInt(STATUS,status.ordinal());
-        sendEventWithName(EVENT_DID_CHANGE_CONNECTION_STATUS,statusMap);
+    public void onConnectionStatusChange(@Nonnull final ConnectionStatus status) {
+        dispatcher.execute("onConnectionStatusChange", new Runnable() {
+            @Override
+            public void run() {
+                if(!hasListeners(EVENT_DID_CHANGE_CONNECTION_STATUS))
+                    return;
+                WritableMap statusMap = Arguments.createMap();
+                statusMap.putInt(STATUS,status.ordinal());
+                sendEventWithName(EVENT_DID_CHANGE_CONNECTION_STATUS,statusMap);
+            }
+        });
     }
 
     @Override
-    public void onReportReaderEvent(@Nonnull ReaderEvent event) {
-        lastReaderEvent = event;
-        WritableMap readerEventReportMap = Arguments.createMap();
-        readerEventReportMap.putInt(EVENT,event.ordinal());
-        readerEventReportMap.putMap(INFO,Arguments.createMap());
-        sendEventWithName(EVENT_DID_REPORT_READER_EVENT, readerEventReportMap);
+    public void onReportReaderEvent(@Nonnull final ReaderEvent event) {
+        dispatcher.execute("onReportReaderEvent", new Runnable() {
+            @Override
+            public void run() {
+                lastReaderEvent = event;
+                if(!hasListeners(EVENT_DID_REPORT_READER_EVENT))
+                    return;
+                WritableMap readerEventReportMap = Arguments.createMap();
+                readerEventReportMap.putInt(EVENT,event.ordinal());
+                readerEventReportMap.putMap(INFO,Arguments.createMap());
+                sendEventWithName(EVENT_DID_REPORT_READER_EVENT, readerEventReportMap);
+            }
+        });
     }
 
     @Override
-    public void onPaymentStatusChange(@Nonnull PaymentStatus status) {
-        WritableMap paymentStatusMap = Arguments.createMap();
-        paymentStatusMap.putInt(STATUS,status.ordinal());
-        sendEventWithName(EVENT_DID_CHANGE_PAYMENT_STATUS,paymentStatusMap);
+    public void onPaymentStatusChange(@Nonnull final PaymentStatus status) {
+        dispatcher.execute("onPaymentStatusChange", new Runnable() {
+            @Override
+            public void run() {
+                if(!hasListeners(EVENT_DID_CHANGE_PAYMENT_STATUS))
+                    return;
+                WritableMap paymentStatusMap = Arguments.createMap();
+                paymentStatusMap.putInt(STATUS,status.ordinal());
+                sendEventWithName(EVENT_DID_CHANGE_PAYMENT_STATUS,paymentStatusMap);
+            }
+        });
     }
 
     @Override
-    public void onUnexpectedReaderDisconnect(@Nonnull Reader reader) {
-        sendEventWithName(EVENT_DID_REPORT_UNEXPECTED_READER_DISCONNECT,serializeReader(reader));
+    public void onUnexpectedReaderDisconnect(@Nonnull final Reader reader) {
+        dispatcher.execute("onUnexpectedReaderDisconnect", new Runnable() {
+            @Override
+            public void run() {
+                if(!hasListeners(EVENT_DID_REPORT_UNEXPECTED_READER_DISCONNECT))
+                    return;
+                sendEventWithName(EVENT_DID_REPORT_UNEXPECTED_READER_DISCONNECT,serializeReader(reader));
+            }
+        });
     }
 
     @Override
-    public void onRequestReaderInput(@Nonnull ReaderInputOptions readerInputOptions) {
-        WritableMap readerOptionsMap = Arguments.createMap();
-        readerOptionsMap.putString(TEXT,readerInputOptions.toString());
-        sendEventWithName(EVENT_DID_REQUEST_READER_INPUT,readerOptionsMap);
+    public void onRequestReaderInput(@Nonnull final ReaderInputOptions readerInputOptions) {
+        dispatcher.execute("onRequestReaderInput", new Runnable() {
+            @Override
+            public void run() {
+                if(!hasListeners(EVENT_DID_REQUEST_READER_INPUT))
+                    return;
+                WritableMap readerOptionsMap = Arguments.createMap();
+                readerOptionsMap.putString(TEXT,readerInputOptions.toString());
+                sendEventWithName(EVENT_DID_REQUEST_READER_INPUT,readerOptionsMap);
+            }
+        });
     }
 
     @Override
-    public void onRequestReaderDisplayMessage(@Nonnull ReaderDisplayMessage readerDisplayMessage) {
-        WritableMap displayMessageMap = Arguments.createMap();
-        displayMessageMap.putString(TEXT,readerDisplayMessage.toString());
-        sendEventWithName(EVENT_DID_REQUEST_READER_DISPLAY_MESSAGE,displayMessageMap);
+    public void onRequestReaderDisplayMessage(@Nonnull final ReaderDisplayMessage readerDisplayMessage) {
+        dispatcher.execute("onRequestReaderDisplayMessage", new Runnable() {
+            @Override
+            public void run() {
+                if(!hasListeners(EVENT_DID_REQUEST_READER_DISPLAY_MESSAGE))
+                    return;
+                WritableMap displayMessageMap = Arguments.createMap();
+                displayMessageMap.putString(TEXT,readerDisplayMessage.toString());
+                sendEventWithName(EVENT_DID_REQUEST_READER_DISPLAY_MESSAGE,displayMessageMap);
+            }
+        });
     }
 
     @Override
-    public void onReportReaderSoftwareUpdateProgress(float v) {
-        sendEventWithName(EVENT_DID_REPORT_UPDATE_PROGRESS,new Float(v));
+    public void onReportReaderSoftwareUpdateProgress(final float v) {
+        dispatcher.execute("onReportReaderSoftwareUpdateProgress", new Runnable() {
+            @Override
+            public void run() {
+                if(!hasListeners(EVENT_DID_REPORT_UPDATE_PROGRESS))
+                    return;
+                sendEventWithName(EVENT_DID_REPORT_UPDATE_PROGRESS,new Float(v));
+            }
+        });
     }
 
     @Override
-    public void onReportAvailableUpdate(ReaderSoftwareUpdate update) {
-        sendEventWithName(EVENT_DID_REPORT_AVAILABLE_UPDATE, serializeUpdate(update));
+    public void onReportAvailableUpdate(final ReaderSoftwareUpdate update) {
+        dispatcher.execute("onReportAvailableUpdate", new Runnable() {
+            @Override
+            public void run() {
+                if(!hasListeners(EVENT_DID_REPORT_AVAILABLE_UPDATE))
+                    return;
+                sendEventWithName(EVENT_DID_REPORT_AVAILABLE_UPDATE, serializeUpdate(update));
+            }
+        });
     }
 
     @Override
-    public void onFinishInstallingUpdate(ReaderSoftwareUpdate update, TerminalException e) {
-        sendEventWithName(EVENT_DID_FINISH_INSTALLING_UPDATE, serializeUpdate(update));
+    public void onFinishInstallingUpdate(final ReaderSoftwareUpdate update, final TerminalException e) {
+        dispatcher.execute("onFinishInstallingUpdate", new Runnable() {
+            @Override
+            public void run() {
+                if(!hasListeners(EVENT_DID_FINISH_INSTALLING_UPDATE))
+                    return;
+                sendEventWithName(EVENT_DID_FINISH_INSTALLING_UPDATE, serializeUpdate(update));
+            }
+        });
     }
 
     @Override
-    public void onStartInstallingUpdate(ReaderSoftwareUpdate update, Cancelable cancel) {
-        sendEventWithName(EVENT_DID_START_INSTALLING_UPDATE, serializeUpdate(update));
+    public void onStartInstallingUpdate(final ReaderSoftwareUpdate update, final Cancelable cancel) {
+        dispatcher.execute("onStartInstallingUpdate", new Runnable() {
+            @Override
+            public void run() {
+                if(!hasListeners(EVENT_DID_START_INSTALLING_UPDATE))
+                    return;
+                sendEventWithName(EVENT_DID_START_INSTALLING_UPDATE, serializeUpdate(update));
+            }
+        });
+    }
+    @Override
+    public void onCatalystInstanceDestroy() {
+        releaseResources();
+    }
+
+    //Newer RN versions call invalidate() instead of onCatalystInstanceDestroy()
+    public void invalidate() {
+        releaseResources();
+    }
+
+    void releaseResources(){
+        TerminalEventRelay.instance.detach(this);
+
+        //Cancel without reporting back, the JS side is going away
+        if(pendingDiscoverReaders!=null && !pendingDiscoverReaders.isCompleted()){
+            pendingDiscoverReaders.cancel(noOpCallback);
+        }
+        if(pendingCreatePaymentIntent!=null && !pendingCreatePaymentIntent.isCompleted()){
+            pendingCreatePaymentIntent.cancel(noOpCallback);
+        }
+        if(pendingInstallUpdate!=null && !pendingInstallUpdate.isCompleted()){
+            pendingInstallUpdate.cancel(noOpCallback);
+        }
+        pendingDiscoverReaders = null;
+        pendingCreatePaymentIntent = null;
+        pendingInstallUpdate = null;
+
+        ConnectionTokenCallback tokenCallback;
+        synchronized (this){
+            isReleased = true;
+            tokenCallback = takeConnectionTokenCallback();
+        }
+        if(tokenCallback!=null){
+            tokenCallback.onFailure(new ConnectionTokenException("React instance was destroyed"));
+        }
+
+        discoveredReadersList = null;
+        synchronized (this){
+            pendingAutoConnect = null;
+        }
+        synchronized (streamedReaderSerials){
+            streamedReaderSerials.clear();
+        }
+        lastPaymentIntent = null;
+        lastCurrency = null;
+        readerSoftwareUpdate = null;
+        listenerRegistry.clear();
+        dispatcher.shutdown();
+        readerCart.clear();
+        clearConnectionTokenFetcher();
+    }
+
+    @ReactMethod
+    public void getDispatchQueueStats(){
+        boolean traced = TerminalTrace.begin("getDispatchQueueStats");
+        try {
+            WritableMap statsMap = Arguments.createMap();
+            statsMap.putInt(QUEUE_DEPTH, dispatcher.getQueueDepth());
+            statsMap.putInt(MAX_QUEUE_DEPTH, dispatcher.getMaxQueueDepth());
+            statsMap.putDouble(DISPATCHED_COUNT, dispatcher.getDispatchedCount());
+            sendEventWithName(EVENT_DISPATCH_QUEUE_STATS, statsMap);
+        } finally {
+            TerminalTrace.end(traced);
+        }
+    }
+
+    @ReactMethod
+    public void setTracingEnabled(boolean enabled){
+        //Opened only when tracing was already on; end() still closes it after disabling
+        boolean traced = TerminalTrace.begin("setTracingEnabled");
+        try {
+            TerminalTrace.setEnabled(enabled);
+        } finally {
+            TerminalTrace.end(traced);
+        }
     }
+
     @ReactMethod
     public void addListener(String eventName) {
-        // Keep: Required for RN built in Event Emitter Calls.
+        boolean traced = TerminalTrace.begin("addListener");
+        try {
+            // Keep: Required for RN built in Event Emitter Calls. RN 0.64 never calls this on Android,
+            // so named additions come from the JS wrapper through addListenerForEvent.
+        } finally {
+            TerminalTrace.end(traced);
+        }
+    }
+
+    @ReactMethod
+    public void addListenerForEvent(String eventName) {
+        boolean traced = TerminalTrace.begin("addListenerForEvent");
+        try {
+            listenerRegistry.add(eventName);
+        } finally {
+            TerminalTrace.end(traced);
+        }
     }
 
     @ReactMethod
     public void removeListeners(Integer count) {
-        // Keep: Required for RN built in Event Emitter Calls.
+        boolean traced = TerminalTrace.begin("removeListeners");
+        try {
+            // Required for RN built in Event Emitter Calls. RN does not say which event was removed,
+            // the JS wrapper reports that through removeListenerForEvent.
+            if(count!=null)
+                listenerRegistry.removeUnnamed(count);
+        } finally {
+            TerminalTrace.end(traced);
+        }
+    }
+
+    @ReactMethod
+    public void removeListenerForEvent(String eventName) {
+        boolean traced = TerminalTrace.begin("removeListenerForEvent");
+        try {
+            listenerRegistry.remove(eventName);
+        } finally {
+            TerminalTrace.end(traced);
+        }
+    }
+
+    @ReactMethod
+    public void getListenerCounts(){
+        boolean traced = TerminalTrace.begin("getListenerCounts");
+        try {
+            WritableMap countsMap = Arguments.createMap();
+            for(Map.Entry<String,Integer> entry:listenerRegistry.snapshot().entrySet()){
+                countsMap.putInt(entry.getKey(),entry.getValue());
+            }
+            WritableMap listenerCountsMap = Arguments.createMap();
+            listenerCountsMap.putMap(COUNTS,countsMap);
+            listenerCountsMap.putInt(UNNAMED_REMOVALS,listenerRegistry.getUnnamedRemovals());
+            sendEventWithName(EVENT_LISTENER_COUNTS,listenerCountsMap);
+        } finally {
+            TerminalTrace.end(traced);
+        }
     }
 }
@@ -0,0 +1,85 @@
+package com.reactnative_stripeterminal;
+
+import com.stripe.stripeterminal.external.models.Cart;
+import com.stripe.stripeterminal.external.models.CartLineItem;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Cart kept on the native side so JS only sends line item deltas. Lines keep insertion order,
+ * the total is maintained incrementally and each line's CartLineItem is only rebuilt when that
+ * line changes.
+ */
+public class ReaderCart {
+    static final String CURRENCY = "gbp";
+
+    static class Line {
+        final String description;
+        final int quantity;
+        final long value;
+        final CartLineItem lineItem;
+
+        Line(String description, int quantity, long value){
+            this.description = description;
+            this.quantity = quantity;
+            this.value = value;
+            this.lineItem = new CartLineItem.Builder(description, quantity, value).build();
+        }
+    }
+
+    private final LinkedHashMap<String,Line> lines = new LinkedHashMap<String,Line>();
+    private long total = 0;
+
+    /**
+     * Adds a line, or replaces it if the id is already present.
+     */
+    public synchronized void put(String id, String description, int quantity, long value){
+        Line previous = lines.put(id, new Line(description, quantity, value));
+        if(previous!=null)
+            total -= previous.value;
+        total += value;
+    }
+
+    /**
+     * Updates quantity and value of an existing line. Returns false if the id is unknown.
+     */
+    public synchronized boolean update(String id, int quantity, long value){
+        Line previous = lines.get(id);
+        if(previous==null)
+            return false;
+        lines.put(id, new Line(previous.description, quantity, value));
+        total += value-previous.value;
+        return true;
+    }
+
+    public synchronized boolean remove(String id){
+        Line previous = lines.remove(id);
+        if(previous==null)
+            return false;
+        total -= previous.value;
+        return true;
+    }
+
+    public synchronized void clear(){
+        lines.clear();
+        total = 0;
+    }
+
+    public synchronized long getTotal(){
+        return total;
+    }
+
+    public synchronized int size(){
+        return lines.size();
+    }
+
+    public synchronized Cart build(){
+        List<CartLineItem> lineItems = new ArrayList<CartLineItem>(lines.size());
+        for(Line line:lines.values()){
+            lineItems.add(line.lineItem);
+        }
+        return new Cart.Builder(CURRENCY, 0, total, lineItems).build();
+    }
+}
@@ -0,0 +1,139 @@
+package com.reactnative_stripeterminal;
+
+import com.stripe.stripeterminal.external.callable.BluetoothReaderListener;
+import com.stripe.stripeterminal.external.callable.Cancelable;
+import com.stripe.stripeterminal.external.callable.ConnectionTokenCallback;
+import com.stripe.stripeterminal.external.callable.ConnectionTokenProvider;
+import com.stripe.stripeterminal.external.callable.DiscoveryListener;
+import com.stripe.stripeterminal.external.callable.TerminalListener;
+import com.stripe.stripeterminal.external.models.ConnectionStatus;
+import com.stripe.stripeterminal.external.models.ConnectionTokenException;
+import com.stripe.stripeterminal.external.models.PaymentStatus;
+import com.stripe.stripeterminal.external.models.Reader;
+import com.stripe.stripeterminal.external.models.ReaderDisplayMessage;
+import com.stripe.stripeterminal.external.models.ReaderEvent;
+import com.stripe.stripeterminal.external.models.ReaderInputOptions;
+import com.stripe.stripeterminal.external.models.ReaderSoftwareUpdate;
+import com.stripe.stripeterminal.external.models.TerminalException;
+
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+/**
+ * The Terminal singleton outlives the React instance, so it is handed this relay
+ * instead of a module, including as the discovery and Bluetooth reader listener. The
+ * relay forwards to whichever module is currently attached and holds nothing once that
+ * module is torn down (e.g. on JS reload).
+ */
+public class TerminalEventRelay implements TerminalListener, ConnectionTokenProvider, BluetoothReaderListener, DiscoveryListener {
+    static final TerminalEventRelay instance = new TerminalEventRelay();
+
+    private volatile RNStripeTerminalModule module = null;
+
+    private TerminalEventRelay(){ }
+
+    void attach(RNStripeTerminalModule module){
+        this.module = module;
+    }
+
+    void detach(RNStripeTerminalModule module){
+        if(this.module==module){
+            this.module = null;
+        }
+    }
+
+    @Override
+    public void fetchConnectionToken(@Nonnull ConnectionTokenCallback connectionTokenCallback) {
+        RNStripeTerminalModule current = module;
+        if(current!=null){
+            current.fetchConnectionToken(connectionTokenCallback);
+        }else{
+            connectionTokenCallback.onFailure(new ConnectionTokenException("React instance is not available"));
+        }
+    }
+
+    @Override
+    public void onConnectionStatusChange(@Nonnull ConnectionStatus status) {
+        RNStripeTerminalModule current = module;
+        if(current!=null)
+            current.onConnectionStatusChange(status);
+    }
+
+    @Override
+    public void onPaymentStatusChange(@Nonnull PaymentStatus status) {
+        RNStripeTerminalModule current = module;
+        if(current!=null)
+            current.onPaymentStatusChange(status);
+    }
+
+    @Override
+    public void onUnexpectedReaderDisconnect(@Nonnull Reader reader) {
+        RNStripeTerminalModule current = module;
+        if(current!=null)
+            current.onUnexpectedReaderDisconnect(reader);
+    }
+
+    @Override
+    public void onUpdateDiscoveredReaders(@Nonnull List<? extends Reader> list) {
+        RNStripeTerminalModule current = module;
+        if(current!=null)
+            current.onUpdateDiscoveredReaders(list);
+    }
+
+    @Override
+    public void onReportLowBatteryWarning() {
+        RNStripeTerminalModule current = module;
+        if(current!=null)
+            current.onReportLowBatteryWarning();
+    }
+
+    @Override
+    public void onReportReaderEvent(@Nonnull ReaderEvent event) {
+        RNStripeTerminalModule current = module;
+        if(current!=null)
+            current.onReportReaderEvent(event);
+    }
+
+    @Override
+    public void onRequestReaderInput(@Nonnull ReaderInputOptions readerInputOptions) {
+        RNStripeTerminalModule current = module;
+        if(current!=null)
+            current.onRequestReaderInput(readerInputOptions);
+    }
+
+    @Override
+    public void onRequestReaderDisplayMessage(@Nonnull ReaderDisplayMessage readerDisplayMessage) {
+        RNStripeTerminalModule current = module;
+        if(current!=null)
+            current.onRequestReaderDisplayMessage(readerDisplayMessage);
+    }
+
+    @Override
+    public void onReportReaderSoftwareUpdateProgress(float v) {
+        RNStripeTerminalModule current = module;
+        if(current!=null)
+            current.onReportReaderSoftwareUpdateProgress(v);
+    }
+
+    @Override
+    public void onReportAvailableUpdate(ReaderSoftwareUpdate update) {
+        RNStripeTerminalModule current = module;
+        if(current!=null)
+            current.onReportAvailableUpdate(update);
+    }
+
+    @Override
+    public void onFinishInstallingUpdate(ReaderSoftwareUpdate update, TerminalException e) {
+        RNStripeTerminalModule current = module;
+        if(current!=null)
+            current.onFinishInstallingUpdate(update, e);
+    }
+
+    @Override
+    public void onStartInstallingUpdate(ReaderSoftwareUpdate update, Cancelable cancel) {
+        RNStripeTerminalModule current = module;
+        if(current!=null)
+            current.onStartInstallingUpdate(update, cancel);
+    }
+}
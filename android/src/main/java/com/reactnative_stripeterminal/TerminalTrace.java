@@ -0,0 +1,187 @@
+package com.reactnative_stripeterminal;
+
+import android.os.Build;
+import android.os.Trace;
+
+import com.stripe.stripeterminal.external.callable.Callback;
+import com.stripe.stripeterminal.external.callable.ConnectionTokenCallback;
+import com.stripe.stripeterminal.external.callable.PaymentIntentCallback;
+import com.stripe.stripeterminal.external.callable.ReaderCallback;
+import com.stripe.stripeterminal.external.models.ConnectionTokenException;
+import com.stripe.stripeterminal.external.models.PaymentIntent;
+import com.stripe.stripeterminal.external.models.Reader;
+import com.stripe.stripeterminal.external.models.TerminalException;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Optional atrace sections for Systrace/Perfetto. Disabled by default; every call is a single
+ * volatile read until setTracingEnabled(true) is called from JS.
+ *
+ * Close sections opened by begin() in a finally block: React methods share the native modules
+ * thread, so a section left open by a throw would mis-nest everything traced after it.
+ *
+ * Async spans (request to SDK completion) use Trace.beginAsyncSection, added in API 29. It is
+ * looked up reflectively so the library still compiles against SDK 28; below 29 only the
+ * synchronous sections are recorded.
+ */
+public class TerminalTrace {
+    static final String PREFIX = "RNStripeTerminal.";
+    static volatile boolean enabled = false;
+    private static final AtomicInteger nextCookie = new AtomicInteger(1);
+    private static Method beginAsyncSection = null;
+    private static Method endAsyncSection = null;
+    private static boolean asyncResolved = false;
+
+    public static void setEnabled(boolean isEnabled){
+        enabled = isEnabled;
+    }
+
+    /**
+     * Returns whether a section was opened; pass the result to end() so toggling tracing
+     * mid-section never unbalances the stack.
+     */
+    public static boolean begin(String name){
+        if(!enabled)
+            return false;
+        Trace.beginSection(PREFIX+name);
+        return true;
+    }
+
+    public static boolean begin(String name, String detail){
+        if(!enabled)
+            return false;
+        Trace.beginSection(PREFIX+name+":"+detail);
+        return true;
+    }
+
+    public static void end(boolean began){
+        if(began)
+            Trace.endSection();
+    }
+
+    private static synchronized boolean resolveAsync(){
+        if(!asyncResolved){
+            asyncResolved = true;
+            if(Build.VERSION.SDK_INT>=29){
+                try {
+                    beginAsyncSection = Trace.class.getMethod("beginAsyncSection", String.class, int.class);
+                    endAsyncSection = Trace.class.getMethod("endAsyncSection", String.class, int.class);
+                } catch (NoSuchMethodException e){
+                    beginAsyncSection = null;
+                    endAsyncSection = null;
+                }
+            }
+        }
+        return beginAsyncSection!=null;
+    }
+
+    /**
+     * Starts an async span and returns its cookie, or 0 when nothing was recorded.
+     */
+    public static int beginAsync(String name){
+        if(!enabled || !resolveAsync())
+            return 0;
+        int cookie = nextCookie.getAndIncrement();
+        try {
+            beginAsyncSection.invoke(null, PREFIX+name, cookie);
+        } catch (Exception e){
+            return 0;
+        }
+        return cookie;
+    }
+
+    public static void endAsync(String name, int cookie){
+        if(cookie==0 || !resolveAsync())
+            return;
+        try {
+            endAsyncSection.invoke(null, PREFIX+name, cookie);
+        } catch (Exception e){
+            //Tracing is best effort
+        }
+    }
+
+    /*
+     * The span() overloads bind an async span to one SDK request by wrapping its callback.
+     * With tracing off the shared callback is returned as is, so nothing is allocated.
+     */
+
+    public static Callback span(final String name, final Callback callback){
+        final int cookie = beginAsync(name);
+        if(cookie==0)
+            return callback;
+        return new Callback() {
+            @Override
+            public void onSuccess() {
+                endAsync(name, cookie);
+                callback.onSuccess();
+            }
+
+            @Override
+            public void onFailure(@Nonnull TerminalException e) {
+                endAsync(name, cookie);
+                callback.onFailure(e);
+            }
+        };
+    }
+
+    public static PaymentIntentCallback span(final String name, final PaymentIntentCallback callback){
+        final int cookie = beginAsync(name);
+        if(cookie==0)
+            return callback;
+        return new PaymentIntentCallback() {
+            @Override
+            public void onSuccess(@Nonnull PaymentIntent paymentIntent) {
+                endAsync(name, cookie);
+                callback.onSuccess(paymentIntent);
+            }
+
+            @Override
+            public void onFailure(@Nonnull TerminalException e) {
+                endAsync(name, cookie);
+                callback.onFailure(e);
+            }
+        };
+    }
+
+    public static ReaderCallback span(final String name, final ReaderCallback callback){
+        final int cookie = beginAsync(name);
+        if(cookie==0)
+            return callback;
+        return new ReaderCallback() {
+            @Override
+            public void onSuccess(@Nonnull Reader reader) {
+                endAsync(name, cookie);
+                callback.onSuccess(reader);
+            }
+
+            @Override
+            public void onFailure(@Nonnull TerminalException e) {
+                endAsync(name, cookie);
+                callback.onFailure(e);
+            }
+        };
+    }
+
+    public static ConnectionTokenCallback span(final String name, final ConnectionTokenCallback callback){
+        final int cookie = beginAsync(name);
+        if(cookie==0)
+            return callback;
+        return new ConnectionTokenCallback() {
+            @Override
+            public void onSuccess(@Nonnull String token) {
+                endAsync(name, cookie);
+                callback.onSuccess(token);
+            }
+
+            @Override
+            public void onFailure(@Nonnull ConnectionTokenException e) {
+                endAsync(name, cookie);
+                callback.onFailure(e);
+            }
+        };
+    }
+}
@@ -0,0 +1,145 @@
+package com.reactnative_stripeterminal;
+
+import com.stripe.stripeterminal.external.callable.ConnectionTokenCallback;
+import com.stripe.stripeterminal.external.models.ConnectionTokenException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HttpConnectionTokenFetcherTest {
+    private HttpServer server;
+    private volatile int responseStatus = 200;
+    private volatile String responseBody = "{\"secret\":\"pst_test_123\"}";
+    private volatile String receivedMethod = null;
+    private volatile String receivedAuthorization = null;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/token", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                receivedMethod = exchange.getRequestMethod();
+                receivedAuthorization = exchange.getRequestHeaders().getFirst("Authorization");
+                byte[] body = responseBody.getBytes("UTF-8");
+                exchange.sendResponseHeaders(responseStatus, body.length);
+                OutputStream outputStream = exchange.getResponseBody();
+                outputStream.write(body);
+                outputStream.close();
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private HttpConnectionTokenFetcher createFetcher(Map<String,String> headers) throws IOException {
+        return new HttpConnectionTokenFetcher("http://127.0.0.1:"+server.getAddress().getPort()+"/token", headers);
+    }
+
+    @Test
+    public void fetchTokenReturnsSecretAndForwardsHeaders() throws Exception {
+        HashMap<String,String> headers = new HashMap<String,String>();
+        headers.put("Authorization", "Bearer abc");
+        HttpConnectionTokenFetcher fetcher = createFetcher(headers);
+
+        assertEquals("pst_test_123", fetcher.fetchToken());
+        assertEquals("POST", receivedMethod);
+        assertEquals("Bearer abc", receivedAuthorization);
+        fetcher.shutdown();
+    }
+
+    @Test
+    public void fetchTokenFailsOnNonSuccessStatus() throws Exception {
+        responseStatus = 500;
+        responseBody = "{\"error\":\"boom\"}";
+        HttpConnectionTokenFetcher fetcher = createFetcher(null);
+
+        try {
+            fetcher.fetchToken();
+            fail("Expected IOException for HTTP 500");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("500"));
+        }
+        assertNull(receivedAuthorization);
+        fetcher.shutdown();
+    }
+
+    @Test
+    public void fetchTokenFailsWhenSecretIsMissing() throws Exception {
+        responseBody = "{\"token\":\"pst_test_123\"}";
+        HttpConnectionTokenFetcher fetcher = createFetcher(null);
+
+        try {
+            fetcher.fetchToken();
+            fail("Expected IOException for missing secret");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains(HttpConnectionTokenFetcher.SECRET));
+        }
+        fetcher.shutdown();
+    }
+
+    @Test
+    public void queuedFetchCompletesAfterShutdown() throws Exception {
+        HttpConnectionTokenFetcher fetcher = createFetcher(null);
+        RecordingCallback callback = new RecordingCallback();
+
+        fetcher.fetchConnectionToken(callback);
+        fetcher.shutdown();
+
+        assertTrue(callback.latch.await(5, TimeUnit.SECONDS));
+        assertEquals("pst_test_123", callback.token);
+        assertNull(callback.error);
+    }
+
+    @Test
+    public void fetchAfterShutdownFailsCallback() throws Exception {
+        HttpConnectionTokenFetcher fetcher = createFetcher(null);
+        fetcher.shutdown();
+        RecordingCallback callback = new RecordingCallback();
+
+        fetcher.fetchConnectionToken(callback);
+
+        assertTrue(callback.latch.await(5, TimeUnit.SECONDS));
+        assertNull(callback.token);
+        assertTrue(callback.error!=null);
+    }
+
+    static class RecordingCallback implements ConnectionTokenCallback {
+        final CountDownLatch latch = new CountDownLatch(1);
+        volatile String token = null;
+        volatile ConnectionTokenException error = null;
+
+        @Override
+        public void onSuccess(String token) {
+            this.token = token;
+            latch.countDown();
+        }
+
+        @Override
+        public void onFailure(ConnectionTokenException e) {
+            this.error = e;
+            latch.countDown();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.reactnative_stripeterminal;
+
+import com.stripe.stripeterminal.external.models.Cart;
+import com.stripe.stripeterminal.external.models.CartLineItem;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReaderCartTest {
+    private ReaderCart cart;
+
+    @Before
+    public void setUp() {
+        cart = new ReaderCart();
+        cart.put("a", "Coffee", 1, 300);
+        cart.put("b", "Cake", 2, 500);
+        cart.put("c", "Water", 1, 100);
+    }
+
+    @Test
+    public void putAddsToTotal() {
+        assertEquals(900, cart.getTotal());
+        assertEquals(3, cart.size());
+    }
+
+    @Test
+    public void putReplacesExistingLine() {
+        cart.put("b", "Cake slice", 1, 250);
+
+        assertEquals(650, cart.getTotal());
+        assertEquals(3, cart.size());
+        assertEquals("Cake slice", cart.build().getLineItems().get(1).getDescription());
+    }
+
+    @Test
+    public void updateAdjustsTotalAndKeepsDescription() {
+        assertTrue(cart.update("c", 3, 300));
+
+        assertEquals(1100, cart.getTotal());
+        CartLineItem line = cart.build().getLineItems().get(2);
+        assertEquals("Water", line.getDescription());
+        assertEquals(3, line.getQuantity());
+    }
+
+    @Test
+    public void updateOfUnknownLineIsIgnored() {
+        assertFalse(cart.update("missing", 1, 1000));
+        assertEquals(900, cart.getTotal());
+    }
+
+    @Test
+    public void removeSubtractsFromTotal() {
+        assertTrue(cart.remove("a"));
+        assertFalse(cart.remove("a"));
+
+        assertEquals(600, cart.getTotal());
+        assertEquals(2, cart.size());
+    }
+
+    @Test
+    public void linesKeepInsertionOrder() {
+        cart.put("a", "Coffee", 2, 600);
+        cart.remove("b");
+        cart.put("d", "Tea", 1, 200);
+
+        Cart built = cart.build();
+        List<CartLineItem> lineItems = built.getLineItems();
+        assertEquals(3, lineItems.size());
+        assertEquals("Coffee", lineItems.get(0).getDescription());
+        assertEquals("Water", lineItems.get(1).getDescription());
+        assertEquals("Tea", lineItems.get(2).getDescription());
+        assertEquals(900, built.getTotal());
+    }
+
+    @Test
+    public void clearResetsTotal() {
+        cart.clear();
+
+        assertEquals(0, cart.getTotal());
+        assertEquals(0, cart.size());
+    }
+}
@@ -22,6 +22,24 @@ export type ProcessPaymentResolve = {
   stripeId: string;
 };
 
+export type ListenerCounts = {
+  counts: { [eventName: string]: number };
+  unnamedRemovals: number;
+};
+
+export type DispatchQueueStats = {
+  // SDK callbacks waiting on the native callback thread
+  queueDepth: number;
+  maxQueueDepth: number;
+  dispatchedCount: number;
+};
+
+export type CartUpdate = {
+  amount: number;
+  lineCount: number;
+  error?: string;
+};
+
 export type CartItem = {
   description: string;
   quantity?: number;
@@ -30,6 +48,7 @@ export type CartItem = {
 class StripeTerminal {
   // Discovery method
   DiscoveryMethodInternet = RNStripeTerminal.DiscoveryMethodInternet;
+  DiscoveryMethodBluetoothScan = RNStripeTerminal.DiscoveryMethodBluetoothScan;
   // Payment intent statuses
   PaymentIntentStatusRequiresPaymentMethod =
     RNStripeTerminal.PaymentIntentStatusRequiresPaymentMethod;
@@ -55,15 +74,16 @@ class StripeTerminal {
   ConnectionStatusConnected = RNStripeTerminal.ConnectionStatusConnected;
   ConnectionStatusConnecting = RNStripeTerminal.ConnectionStatusConnecting;
 
-  //Event listener
-  listener = new NativeEventEmitter(RNStripeTerminal);
+  //Event listener. Private: native only emits events registered through _subscribe, so
+  //subscribe with the add*Listener methods rather than on the emitter directly.
+  private _listener = new NativeEventEmitter(RNStripeTerminal);
 
   // Fetch connection token. Overwritten in call to initialize
   _fetchConnectionToken = ():Promise<any> =>
     Promise.reject("You must initialize RNStripeTerminal first.");
 
   constructor() {
-    this.listener.addListener("requestConnectionToken", () => {
+    this._subscribe("requestConnectionToken", () => {
       this._fetchConnectionToken()
         .then((token) => {
           if (token) {
@@ -89,13 +109,13 @@ class StripeTerminal {
     key?: string
   ): Promise<any> {
     return new Promise((resolve, reject) => {
-      const subscription = this.listener.addListener(event, (data) => {
+      const remove = this._subscribe(event, (data) => {
         if (data && data.error) {
           reject(data);
         } else {
           resolve(key ? data[key] : data);
         }
-        subscription.remove();
+        remove();
       });
 
       call();
@@ -117,6 +137,20 @@ class StripeTerminal {
     });
   }
 
+  setConnectionTokenEndpoint(
+    url: string | null,
+    headers: { [name: string]: string } = {}
+  ): Promise<void> {
+    /**
+     * Lets the native module fetch connection tokens itself by POSTing to `url`, which must
+     * respond with JSON containing `secret`. Token requests then no longer wait on the JS thread.
+     * Pass null to go back to the `fetchConnectionToken` supplied to initialize.
+     */
+    return this._wrapPromiseReturn("connectionTokenEndpoint", () => {
+      RNStripeTerminal.setConnectionTokenEndpoint(url, headers);
+    });
+  }
+
   discoverReaders(simulated: boolean, locationId: string): Promise<Reader[]> {
     return this._wrapPromiseReturn("readersDiscovered", () => {
       RNStripeTerminal.discoverReaders(
@@ -127,6 +161,50 @@ class StripeTerminal {
     });
   }
 
+  discoverBluetoothReaders(simulated: boolean): Promise<unknown> {
+    /**
+     * Starts a Bluetooth scan. Each reader is delivered once to addReaderDiscoveredListener as soon as
+     * it is found, in the order the SDK reports them. Readers are not sorted by signal strength: the
+     * Android SDK (2.x) does not expose RSSI. Resolves when discovery finishes; rejects with the
+     * error when it fails or is aborted with abortDiscoverReaders.
+     */
+    return this._wrapPromiseReturn("readerDiscoveryCompletion", () => {
+      RNStripeTerminal.discoverReaders(
+        this.DiscoveryMethodBluetoothScan,
+        !!simulated ? 1 : 0,
+        null
+      );
+    });
+  }
+
+  discoverAndConnect({
+    discoveryMethod = this.DiscoveryMethodInternet,
+    simulated = false,
+    locationId = null,
+    serialNumber = null,
+    policy = "first",
+  }: {
+    discoveryMethod?: number;
+    simulated?: boolean;
+    locationId?: string | null;
+    serialNumber?: string | null;
+    policy?: "first";
+  }): Promise<Reader> {
+    /**
+     * Discovers and connects in one native step: connects to the reader with serialNumber, or the first
+     * reader found, as soon as it is discovered, without a round trip through JS.
+     */
+    return this._wrapPromiseReturn("readerConnection", () => {
+      RNStripeTerminal.discoverAndConnect(
+        discoveryMethod,
+        simulated ? 1 : 0,
+        locationId,
+        serialNumber,
+        policy
+      );
+    });
+  }
+
   connectReader(serialNumber: string, locationId: string): Promise<Reader> {
     return this._wrapPromiseReturn("readerConnection", () => {
       RNStripeTerminal.connectReader(serialNumber, locationId);
@@ -155,6 +233,36 @@ class StripeTerminal {
       RNStripeTerminal.setReaderDisplay(value, cartItems);
     });
   }
+  /**
+   * Native cart: only the changed line crosses the bridge, the native side keeps the
+   * total and pushes the current cart to the reader. Listen to "cartUpdate" for totals.
+   * setTerminalDisplay and clearTerminalDisplay replace the display and empty the native cart.
+   */
+  putCartItem(id: string, item: CartItem) {
+    RNStripeTerminal.cartPutLineItem(
+      id,
+      item.description,
+      item.quantity || 0,
+      item.value || 0
+    );
+  }
+
+  updateCartItem(id: string, quantity: number, value: number) {
+    RNStripeTerminal.cartUpdateLineItem(id, quantity, value);
+  }
+
+  removeCartItem(id: string) {
+    RNStripeTerminal.cartRemoveLineItem(id);
+  }
+
+  clearCart() {
+    RNStripeTerminal.cartClear();
+  }
+
+  addCartUpdateListener(callback: ListenerCallback<CartUpdate>) {
+    return this._addListenerBase("cartUpdate", callback);
+  }
+
   clearTerminalDisplay(): Promise<void> {
     return this._wrapPromiseReturn("clearTerminalDisplay", () => {
       RNStripeTerminal.resetReaderDisplay();
@@ -249,12 +357,49 @@ class StripeTerminal {
     });
   }
 
+  getDispatchQueueStats(): Promise<DispatchQueueStats> {
+    return this._wrapPromiseReturn("dispatchQueueStats", () => {
+      RNStripeTerminal.getDispatchQueueStats();
+    });
+  }
+
+  setTracingEnabled(enabled: boolean) {
+    /**
+     * Emits Systrace/Perfetto sections for native calls, SDK callbacks, serialization and events.
+     * Async spans linking a call to its SDK completion require Android 10+.
+     */
+    RNStripeTerminal.setTracingEnabled(enabled);
+  }
+
+  getListenerCounts(): Promise<ListenerCounts> {
+    return this._wrapPromiseReturn("listenerCounts", () => {
+      RNStripeTerminal.getListenerCounts();
+    });
+  }
+
+  _subscribe(eventType: string, callback: ListenerCallback): EmitterSubscription["remove"] {
+    // NativeEventEmitter does not reliably tell the native module which event gained a subscriber
+    // (RN 0.64 never forwards it on Android), so register it explicitly. Native skips events with none.
+    RNStripeTerminal.addListenerForEvent(eventType);
+    const subscription = this._listener.addListener(eventType, callback);
+    let removed = false;
+    return () => {
+      // Likewise NativeEventEmitter only reports a removal count, so tell native which event lost a
+      // subscriber. Only once: a repeated call must not take the count from another live subscriber.
+      if (removed) {
+        return;
+      }
+      removed = true;
+      subscription.remove();
+      RNStripeTerminal.removeListenerForEvent(eventType);
+    };
+  }
+
   _addListenerBase(
     eventType: string,
     callback: ListenerCallback
   ): EmitterSubscription["remove"] {
-    const subscription = this.listener.addListener(eventType, callback);
-    return subscription.remove;
+    return this._subscribe(eventType, callback);
   }
 
   addLogListener(callback: ListenerCallback) {
@@ -265,6 +410,10 @@ class StripeTerminal {
     return this._addListenerBase("readersDiscovered", callback);
   }
 
+  addReaderDiscoveredListener(callback: ListenerCallback<Reader>) {
+    return this._addListenerBase("readerDiscovered", callback);
+  }
+
   addAbortDiscoverReadersCompletionListener(callback: ListenerCallback) {
     return this._addListenerBase("abortDiscoverReadersCompletion", callback);
   }